@@ -0,0 +1,185 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimal servlet objects backed by a directory of page sources, sufficient for the news index and for capturing
+ * and writing news elements.
+ */
+final class MockServlet {
+
+  /** Make no instances. */
+  private MockServlet() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Creates a servlet context with attributes and init parameters, serving resources from the given directory.
+   */
+  static ServletContext newServletContext(File root, Map<String, String> initParameters) {
+    Map<String, Object> attributes = new ConcurrentHashMap<>();
+    return (ServletContext) Proxy.newProxyInstance(
+        MockServlet.class.getClassLoader(),
+        new Class<?>[]{ServletContext.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getAttribute":
+              return attributes.get((String) args[0]);
+            case "setAttribute":
+              if (args[1] == null) {
+                attributes.remove((String) args[0]);
+              } else {
+                attributes.put((String) args[0], args[1]);
+              }
+              return null;
+            case "removeAttribute":
+              attributes.remove((String) args[0]);
+              return null;
+            case "getAttributeNames":
+              return Collections.enumeration(attributes.keySet());
+            case "getInitParameter":
+              return initParameters.get((String) args[0]);
+            case "getInitParameterNames":
+              return Collections.enumeration(initParameters.keySet());
+            case "getContextPath":
+              return "";
+            case "getVirtualServerName":
+              return "benchmark";
+            case "getRealPath": {
+              File file = new File(root, (String) args[0]);
+              return file.exists() ? file.getPath() : null;
+            }
+            case "getResource": {
+              File file = new File(root, (String) args[0]);
+              return file.exists() ? file.toURI().toURL() : null;
+            }
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return "MockServletContext(" + root + ")";
+            default:
+              throw new UnsupportedOperationException(method.toString());
+          }
+        }
+    );
+  }
+
+  /**
+   * Creates a request with attributes only.
+   */
+  static HttpServletRequest newRequest(ServletContext servletContext) {
+    Map<String, Object> attributes = new ConcurrentHashMap<>();
+    return (HttpServletRequest) Proxy.newProxyInstance(
+        MockServlet.class.getClassLoader(),
+        new Class<?>[]{HttpServletRequest.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getAttribute":
+              return attributes.get((String) args[0]);
+            case "setAttribute":
+              if (args[1] == null) {
+                attributes.remove((String) args[0]);
+              } else {
+                attributes.put((String) args[0], args[1]);
+              }
+              return null;
+            case "removeAttribute":
+              attributes.remove((String) args[0]);
+              return null;
+            case "getAttributeNames":
+              return Collections.enumeration(attributes.keySet());
+            case "getServletContext":
+              return servletContext;
+            case "getScheme":
+              return "http";
+            case "getServerName":
+              return "localhost";
+            case "getServerPort":
+              return 80;
+            case "getContextPath":
+              return "";
+            case "getHeader":
+            case "getParameter":
+              return null;
+            case "getHeaders":
+              return Collections.emptyEnumeration();
+            case "getDateHeader":
+              return -1L;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return "MockHttpServletRequest";
+            default:
+              throw new UnsupportedOperationException(method.toString());
+          }
+        }
+    );
+  }
+
+  /**
+   * Creates a response that ignores headers and status, with an HTML content type.
+   */
+  static HttpServletResponse newResponse() {
+    return (HttpServletResponse) Proxy.newProxyInstance(
+        MockServlet.class.getClassLoader(),
+        new Class<?>[]{HttpServletResponse.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "setHeader":
+            case "setDateHeader":
+            case "setStatus":
+              return null;
+            case "getCharacterEncoding":
+              return "UTF-8";
+            case "getContentType":
+              return "text/html; charset=UTF-8";
+            case "encodeURL":
+            case "encodeRedirectURL":
+              return args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return "MockHttpServletResponse";
+            default:
+              throw new UnsupportedOperationException(method.toString());
+          }
+        }
+    );
+  }
+}
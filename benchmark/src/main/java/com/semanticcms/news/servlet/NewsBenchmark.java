@@ -0,0 +1,288 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.html.servlet.DocumentEE;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.core.servlet.CurrentNode;
+import com.semanticcms.core.servlet.CurrentPage;
+import com.semanticcms.news.model.News;
+import com.semanticcms.news.servlet.impl.NewsImpl;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the news queries over synthetic page trees.
+ *
+ * <p>Build with {@code mvn package}, then run with {@code java -jar target/benchmarks.jar -prof gc}.  Both
+ * throughput and sampled latency are reported, and {@code -prof gc} adds the allocation rate.  Page trees are
+ * selected with {@code -p depth=4 -p fanOut=8 -p newsDensity=0.1}.</p>
+ *
+ * <p>Pages are served from memory by {@link SyntheticBook}, so the numbers exclude the cost of capturing pages
+ * and measure only the traversal, fingerprint checks, sorting and selection performed by this project.  In
+ * production, the pages captured by the {@code cold} and {@code modified} benchmarks dominate.  The news elements
+ * themselves are measured by the {@code doBodyImpl} and {@code writeNewsImpl} benchmarks, which capture and write
+ * the news of a single page.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewsBenchmark {
+
+  /**
+   * The number of levels below the root page.
+   */
+  @Param({"2", "4"})
+  public int depth;
+
+  /**
+   * The number of children of each page above the bottom level.
+   */
+  @Param({"4", "8"})
+  public int fanOut;
+
+  /**
+   * The fraction of pages that contain news.
+   */
+  @Param({"0.1", "1.0"})
+  public double newsDensity;
+
+  /**
+   * The number of news in each page that contains news.
+   */
+  @Param({"2"})
+  public int newsPerPage;
+
+  private SyntheticBook book;
+  private ServletContext servletContext;
+  private HttpServletResponse response;
+  private Page rootPage;
+  private PageRef leafRef;
+  private NewsIndex newsIndex;
+  private RssFeedCache rssFeedCache;
+  private ZonedDateTime since;
+  private List<PageRef> pageRefs;
+  private int nextPageRef;
+  private Page newsPage;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws ServletException, IOException {
+    book = new SyntheticBook(depth, fanOut, newsDensity, newsPerPage, 0);
+    servletContext = MockServlet.newServletContext(book.getRoot(), Collections.emptyMap());
+    NewsCapturer.setInstance(servletContext, book);
+    newsIndex = NewsIndex.getInstance(servletContext);
+    rssFeedCache = RssFeedCache.getInstance(servletContext);
+    response = MockServlet.newResponse();
+    rootPage = book.getRootPage();
+    pageRefs = new ArrayList<>(book.getPages().keySet());
+    // Pages are added bottom-up, so the first is a leaf
+    leafRef = pageRefs.get(0);
+    since = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    newsPage = captureNewsPage(newRequest());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() throws IOException {
+    book.delete();
+  }
+
+  /**
+   * Populates the index, so each benchmark starts warm.
+   */
+  @Setup(Level.Iteration)
+  public void setupIteration() throws ServletException, IOException {
+    newsIndex.clear();
+    rssFeedCache.clear();
+    NewsUtils.findAllNews(servletContext, newRequest(), response, rootPage);
+  }
+
+  private HttpServletRequest newRequest() {
+    return MockServlet.newRequest(servletContext);
+  }
+
+  /**
+   * Captures a page of news elements targeting the page itself, as when the page is captured by SemanticCMS.  The
+   * titles are resolved from the page, except the first news refers forward to the last news by element, which is
+   * resolved once the capture of the page has completed.
+   */
+  private Page captureNewsPage(HttpServletRequest request) throws ServletException, IOException {
+    Page page = new Page();
+    page.setPageRef(leafRef);
+    page.setTitle("Page " + leafRef.getPath());
+    CaptureLevel.setCaptureLevel(request, CaptureLevel.META);
+    CurrentPage.setCurrentPage(request, page);
+    int last = newsPerPage - 1;
+    for (int i = 0; i <= last; i++) {
+      News news = new News();
+      news.setId("news-" + i);
+      if (i == last) {
+        news.setTitle("News " + i + " in " + leafRef.getPath());
+      } else if (i == 0) {
+        news.setElement("news-" + last);
+      }
+      news.setView("content");
+      news.setPubDate(since.plusDays(i));
+      page.addElement(news);
+      CurrentNode.setCurrentNode(request, news);
+      NewsImpl.doBodyImpl(servletContext, request, response, news);
+    }
+    CurrentNode.setCurrentNode(request, null);
+    NewsImpl.checkCapturedPage(servletContext, request, response, page);
+    page.freeze();
+    return page;
+  }
+
+  /**
+   * All news, with every page in the index.  This checks the fingerprint of each page in the subtree.
+   */
+  @Benchmark
+  public List<News> findAllNewsWarm() throws ServletException, IOException {
+    return NewsUtils.findAllNews(servletContext, newRequest(), response, rootPage);
+  }
+
+  /**
+   * All news, with an empty index.  This captures every page in the subtree.
+   */
+  @Benchmark
+  public List<News> findAllNewsCold() throws ServletException, IOException {
+    newsIndex.clear();
+    return NewsUtils.findAllNews(servletContext, newRequest(), response, rootPage);
+  }
+
+  /**
+   * All news, after one page of the subtree has been modified.  This recaptures only the modified page.
+   */
+  @Benchmark
+  public List<News> findAllNewsModified() throws ServletException, IOException {
+    newsIndex.invalidate(leafRef);
+    return NewsUtils.findAllNews(servletContext, newRequest(), response, rootPage);
+  }
+
+  /**
+   * The ten newest news, as shown in a typical feed.
+   */
+  @Benchmark
+  public List<News> findNewsTop10() throws ServletException, IOException {
+    return NewsUtils.findNews(servletContext, newRequest(), response, rootPage, 10, 0);
+  }
+
+  /**
+   * The news published within the last year of the archive.
+   */
+  @Benchmark
+  public List<News> findNewsSince() throws ServletException, IOException {
+    return NewsUtils.findNewsSince(servletContext, newRequest(), response, rootPage, since);
+  }
+
+  /**
+   * Any one news, which stops the traversal at the first page with news.
+   */
+  @Benchmark
+  public Optional<News> streamNewsFindAny() throws ServletException, IOException {
+    return NewsUtils.streamNews(servletContext, newRequest(), response, rootPage, false).findAny();
+  }
+
+  /**
+   * Resolves the RSS servlet path of each page in turn, which replaces any resource extension of the servlet path
+   * of the page.
+   */
+  @Benchmark
+  public String getRssServletPath() {
+    int i = nextPageRef;
+    nextPageRef = (i + 1) % pageRefs.size();
+    return RssUtils.getRssServletPath(pageRefs.get(i));
+  }
+
+  /**
+   * Captures the news elements of a page, resolving the target of each.
+   */
+  @Benchmark
+  public Page doBodyImpl() throws ServletException, IOException {
+    return captureNewsPage(newRequest());
+  }
+
+  /**
+   * Writes the news elements of a captured page.  The table of contents of pages with sections is measured by
+   * {@link TocBenchmark}.
+   */
+  @Benchmark
+  public DocumentEE writeNewsImpl() throws ServletException, IOException {
+    HttpServletRequest request = newRequest();
+    DocumentEE document = new DocumentEE(servletContext, request, response, Writer.nullWriter());
+    for (Element element : newsPage.getElements()) {
+      // Synthetic pages have no sections, so no table of contents is included through the element context
+      NewsImpl.writeNewsImpl(request, document, null, (News) element, null);
+    }
+    return document;
+  }
+
+  /**
+   * A conditional request for the RSS feed of the root page, answered from the feed cache.
+   */
+  @Benchmark
+  public boolean rssFeedNotModified() throws ServletException, IOException {
+    PageRef pageRef = rootPage.getPageRef();
+    HttpServletRequest request = newRequest();
+    RssFeedCache.Feed feed = rssFeedCache.get(request, pageRef);
+    if (feed == null) {
+      StringBuilder content = new StringBuilder();
+      for (News news : NewsUtils.findNews(servletContext, request, response, rootPage, 10, 0)) {
+        content.append(news.getTitle()).append('\n');
+      }
+      feed = rssFeedCache.put(request, pageRef, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    return RssFeedCache.checkNotModified(request, response, feed);
+  }
+}
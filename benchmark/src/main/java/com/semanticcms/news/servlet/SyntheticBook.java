@@ -0,0 +1,187 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.news.model.News;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A synthetic page tree with news, along with the page sources in a temporary directory.
+ * Pages are "captured" from memory, so benchmarks measure the news code without the cost of capturing pages.
+ */
+final class SyntheticBook implements NewsCapturer {
+
+  static final String BOOK_NAME = "/bench";
+
+  private final File root;
+  private final Book book;
+  private final Map<PageRef, Page> pages = new LinkedHashMap<>();
+  private final Page rootPage;
+  private final AtomicLong captures = new AtomicLong();
+
+  /**
+   * Generates a new page tree.
+   *
+   * @param  depth  the number of levels below the root page
+   * @param  fanOut  the number of children of each page above the bottom level
+   * @param  newsDensity  the fraction of pages that contain news, from 0 to 1
+   * @param  newsPerPage  the number of news in each page that contains news
+   * @param  seed  the random seed, for repeatable trees
+   */
+  SyntheticBook(int depth, int fanOut, double newsDensity, int newsPerPage, long seed) throws IOException {
+    this.root = Files.createTempDirectory("semanticcms-news-benchmark-").toFile();
+    this.book = new Book(BOOK_NAME, null, true, Collections.emptySet(), new Properties());
+    Random random = new Random(seed);
+    ZonedDateTime now = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    this.rootPage = addPage("/p", depth, fanOut, newsDensity, newsPerPage, random, now);
+  }
+
+  private Page addPage(
+      String path,
+      int depth,
+      int fanOut,
+      double newsDensity,
+      int newsPerPage,
+      Random random,
+      ZonedDateTime now
+  ) throws IOException {
+    PageRef pageRef = new PageRef(book, path);
+    Page page = new Page();
+    page.setPageRef(pageRef);
+    page.setTitle("Page " + path);
+    if (depth > 0) {
+      for (int i = 0; i < fanOut; i++) {
+        Page child = addPage(path + "-" + i, depth - 1, fanOut, newsDensity, newsPerPage, random, now);
+        page.addChildRef(new ChildRef(child.getPageRef()));
+      }
+    }
+    if (random.nextDouble() < newsDensity) {
+      for (int i = 0; i < newsPerPage; i++) {
+        News news = new News();
+        news.setId("news-" + i);
+        news.setBook(BOOK_NAME);
+        news.setTargetPage(path);
+        news.setTitle("News " + i + " in " + path);
+        news.setDescription("Synthetic news item");
+        news.setView("content");
+        // Spread over ten years of archive
+        news.setPubDate(now.minusMinutes(random.nextInt(10 * 365 * 24 * 60)));
+        page.addElement(news);
+      }
+    }
+    page.freeze();
+    pages.put(pageRef, page);
+    // Write the source, so the index may detect modifications
+    File source = new File(root, pageRef.getServletPath() + ".jspx");
+    source.getParentFile().mkdirs();
+    Files.write(source.toPath(), ("<!-- " + path + " -->").getBytes(StandardCharsets.UTF_8));
+    return page;
+  }
+
+  /**
+   * Gets the directory containing the page sources.
+   */
+  File getRoot() {
+    return root;
+  }
+
+  Page getRootPage() {
+    return rootPage;
+  }
+
+  Map<PageRef, Page> getPages() {
+    return Collections.unmodifiableMap(pages);
+  }
+
+  /**
+   * Gets the number of pages captured from this book.
+   */
+  long getCaptures() {
+    return captures.get();
+  }
+
+  /**
+   * Removes the page sources.
+   */
+  void delete() throws IOException {
+    for (Page page : pages.values()) {
+      Files.deleteIfExists(new File(root, page.getPageRef().getServletPath() + ".jspx").toPath());
+    }
+    Files.deleteIfExists(new File(root, BOOK_NAME).toPath());
+    Files.deleteIfExists(root.toPath());
+  }
+
+  @Override
+  public Page capturePage(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    Page page = pages.get(pageRef);
+    if (page == null) {
+      throw new ServletException("Page not found: " + pageRef);
+    }
+    captures.incrementAndGet();
+    return page;
+  }
+
+  @Override
+  public Map<PageRef, Page> capturePages(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Set<PageRef> pageRefs,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    Map<PageRef, Page> captured = new HashMap<>(pageRefs.size() * 4 / 3 + 1);
+    for (PageRef pageRef : pageRefs) {
+      captured.put(pageRef, capturePage(servletContext, request, response, pageRef, level));
+    }
+    return captured;
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.html.servlet.DocumentEE;
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.ElementContext;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import com.semanticcms.news.servlet.impl.NewsImpl;
+import com.semanticcms.section.model.Section;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the table of contents check of
+ * {@link NewsImpl#writeNewsImpl(jakarta.servlet.http.HttpServletRequest, com.aoapps.html.any.AnyPalpableContent, com.semanticcms.core.model.ElementContext, com.semanticcms.news.model.News, com.semanticcms.core.servlet.PageIndex)}
+ * on pages with many news elements, such as changelogs.
+ *
+ * <p>Each operation writes one news element of a page whose sections follow its news, so the table of contents is
+ * decided by the first news element.  A new request is started once every news element of the page has been
+ * written, so the time per element includes its share of the table of contents, which is written once per page.
+ * The time per element should hold flat as {@code newsCount} grows.</p>
+ *
+ * <p>The table of contents is included through an element context that writes nothing, so only the decision and
+ * its bookkeeping are measured.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TocBenchmark {
+
+  /**
+   * The number of news elements in the page.
+   */
+  @Param({"10", "100", "1000"})
+  public int newsCount;
+
+  /**
+   * The number of sections after the news of the page.
+   */
+  @Param({"8"})
+  public int sectionCount;
+
+  private File root;
+  private ServletContext servletContext;
+  private HttpServletResponse response;
+  private ElementContext context;
+  private List<News> news;
+  private HttpServletRequest request;
+  private DocumentEE document;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws IOException {
+    root = Files.createTempDirectory("semanticcms-news-toc-benchmark-").toFile();
+    servletContext = MockServlet.newServletContext(root, Collections.emptyMap());
+    response = MockServlet.newResponse();
+    context = (ElementContext) Proxy.newProxyInstance(
+        TocBenchmark.class.getClassLoader(),
+        new Class<?>[]{ElementContext.class},
+        (proxy, method, args) -> null
+    );
+    Book book = new Book("/toc", null, true, Collections.emptySet(), new Properties());
+    Page page = new Page();
+    page.setPageRef(new PageRef(book, "/changelog"));
+    page.setTitle("Changelog");
+    ZonedDateTime since = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    news = new ArrayList<>(newsCount);
+    for (int i = 0; i < newsCount; i++) {
+      News n = new News();
+      n.setId("news-" + i);
+      n.setBook(page.getPageRef().getBookName());
+      n.setTargetPage(page.getPageRef().getPath());
+      n.setTitle("News " + i);
+      n.setView("content");
+      n.setPubDate(since.plusDays(i));
+      page.addElement(n);
+      news.add(n);
+    }
+    for (int i = 0; i < sectionCount; i++) {
+      Section section = new Section();
+      section.setId("section-" + i);
+      section.setName("Section " + i);
+      page.addElement(section);
+    }
+    page.freeze();
+    next = newsCount;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() throws IOException {
+    Files.deleteIfExists(root.toPath());
+  }
+
+  /**
+   * Writes the next news element of the page, starting a new request after the last.
+   */
+  @Benchmark
+  public DocumentEE writeNewsImpl() throws ServletException, IOException {
+    int i = next;
+    if (i == newsCount) {
+      request = MockServlet.newRequest(servletContext);
+      document = new DocumentEE(servletContext, request, response, Writer.nullWriter());
+      i = 0;
+    }
+    next = i + 1;
+    NewsImpl.writeNewsImpl(request, document, context, news.get(i), null);
+    return document;
+  }
+}
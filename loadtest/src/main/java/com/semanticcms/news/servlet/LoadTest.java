@@ -0,0 +1,412 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+
+/**
+ * Concurrent load test of the news queries in an embedded servlet container, over synthetic books.
+ *
+ * <p>Build with {@code mvn package}, then run with {@code java -jar target/loadtest.jar}.  Options are given as
+ * {@code -name=value}, listed by {@code -help}.  For each level of concurrency, a closed loop of client threads sends
+ * requests as fast as they are answered, then throughput, latency percentiles, and garbage collection are
+ * reported.  A closed loop waits for each response before sending the next request, so latency at high
+ * concurrency includes queueing in the container.</p>
+ *
+ * <p>Pages are captured from memory by {@link SyntheticSite}, while their sources are checked for modification as in
+ * production.  Each capture resolves the targets of its news elements, which include pages in other books, a book
+ * that is not configured, and later elements of the same page.  Client and server share the same JVM, so the
+ * allocation rate includes the client.</p>
+ */
+public final class LoadTest {
+
+  /**
+   * Make no instances.
+   */
+  private LoadTest() {
+    throw new AssertionError();
+  }
+
+  private static final String USAGE =
+      "usage: java -jar loadtest.jar [-option=value]...\n"
+          + "  -books=3               the number of books\n"
+          + "  -depth=3               the number of levels below the root of each book\n"
+          + "  -fanOut=6              the number of children of each page above the bottom level\n"
+          + "  -newsDensity=0.3       the fraction of pages that contain news\n"
+          + "  -newsPerPage=2         the number of news in each page that contains news\n"
+          + "  -crossBook=0.2         the fraction of news targeting another page, possibly in another book\n"
+          + "  -missingBook=0.05      the fraction of news targeting a book that is not configured\n"
+          + "  -forward=0.2           the fraction of news targeting a later news element of the same page\n"
+          + "  -concurrency=1,2,4,8,16,32,64  the numbers of client threads, in order\n"
+          + "  -warmup=5              the seconds of warm-up at each level\n"
+          + "  -duration=10           the seconds measured at each level\n"
+          + "  -touchRate=0           the page sources modified per second, forcing pages to be captured again\n"
+          + "  -feedRatio=0.2         the fraction of requests for feeds\n"
+          + "  -pageRatio=0.2         the fraction of requests rendering the news elements of a page\n"
+          + "                         the rest are split between all and top news\n"
+          + "  -seed=0                the random seed of the generated books\n";
+
+  /**
+   * The latencies recorded by one client thread.
+   */
+  private static final class Latencies {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    private void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+
+  /**
+   * The totals of garbage collection and allocation at one point in time.
+   */
+  private static final class GcSample {
+
+    private final long collections;
+    private final long collectionMillis;
+    private final long allocatedBytes;
+
+    private GcSample() {
+      long count = 0;
+      long time = 0;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        count += Math.max(0, gc.getCollectionCount());
+        time += Math.max(0, gc.getCollectionTime());
+      }
+      this.collections = count;
+      this.collectionMillis = time;
+      long allocated = 0;
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        // Approximate: the allocations of threads that have since ended are not counted
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+            threads.getAllThreadIds()
+        )) {
+          if (bytes > 0) {
+            allocated += bytes;
+          }
+        }
+      }
+      this.allocatedBytes = allocated;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (!arg.startsWith("-") || eq == -1) {
+        System.err.print(USAGE);
+        System.exit(1);
+        return;
+      }
+      options.put(arg.substring(1, eq), arg.substring(eq + 1));
+    }
+    SyntheticSite.Options siteOptions = new SyntheticSite.Options();
+    siteOptions.books = Integer.parseInt(options.getOrDefault("books", "3"));
+    siteOptions.depth = Integer.parseInt(options.getOrDefault("depth", "3"));
+    siteOptions.fanOut = Integer.parseInt(options.getOrDefault("fanOut", "6"));
+    siteOptions.newsDensity = Double.parseDouble(options.getOrDefault("newsDensity", "0.3"));
+    siteOptions.newsPerPage = Integer.parseInt(options.getOrDefault("newsPerPage", "2"));
+    siteOptions.crossBookTargets = Double.parseDouble(options.getOrDefault("crossBook", "0.2"));
+    siteOptions.missingBookTargets = Double.parseDouble(options.getOrDefault("missingBook", "0.05"));
+    siteOptions.forwardTargets = Double.parseDouble(options.getOrDefault("forward", "0.2"));
+    siteOptions.seed = Long.parseLong(options.getOrDefault("seed", "0"));
+    int[] concurrency = Arrays.stream(options.getOrDefault("concurrency", "1,2,4,8,16,32,64").split(","))
+        .mapToInt(s -> Integer.parseInt(s.trim()))
+        .toArray();
+    long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "5")));
+    long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "10")));
+    double touchRate = Double.parseDouble(options.getOrDefault("touchRate", "0"));
+    double feedRatio = Double.parseDouble(options.getOrDefault("feedRatio", "0.2"));
+    double pageRatio = Double.parseDouble(options.getOrDefault("pageRatio", "0.2"));
+
+    SyntheticSite site = new SyntheticSite(siteOptions);
+    File baseDir = Files.createTempDirectory("semanticcms-news-loadtest-tomcat-").toFile();
+    Tomcat tomcat = new Tomcat();
+    tomcat.setBaseDir(baseDir.getAbsolutePath());
+    tomcat.setPort(0);
+    Context context = tomcat.addContext("", site.getDocBase().getAbsolutePath());
+    // Every run starts cold
+    context.addParameter(NewsIndex.MANIFEST_DIRECTORY_INIT_PARAM, "false");
+    context.addServletContainerInitializer(
+        (classes, servletContext) -> NewsCapturer.setInstance(servletContext, site),
+        null
+    );
+    Tomcat.addServlet(context, "loadtest", new LoadTestServlet(site));
+    context.addServletMappingDecoded("/news/*", "loadtest");
+    context.addServletMappingDecoded("/feed", "loadtest");
+    context.addServletMappingDecoded("/page", "loadtest");
+    ScheduledExecutorService toucher = null;
+    try {
+      // Creates the default connector
+      tomcat.getConnector();
+      tomcat.start();
+      String baseUri = "http://localhost:" + tomcat.getConnector().getLocalPort();
+      List<URI> allUris = new ArrayList<>();
+      List<URI> topUris = new ArrayList<>();
+      for (Page rootPage : site.getRootPages()) {
+        String book = URLEncoder.encode(rootPage.getPageRef().getBookName(), StandardCharsets.UTF_8);
+        allUris.add(URI.create(baseUri + "/news/all?book=" + book));
+        topUris.add(URI.create(baseUri + "/news/top?book=" + book + "&limit=10"));
+      }
+      List<URI> feedUris = new ArrayList<>();
+      List<URI> pageUris = new ArrayList<>();
+      for (Map.Entry<PageRef, Page> entry : site.getPages().entrySet()) {
+        PageRef pageRef = entry.getKey();
+        feedUris.add(URI.create(
+            baseUri + "/feed?path=" + URLEncoder.encode(RssUtils.getRssServletPath(pageRef), StandardCharsets.UTF_8)
+        ));
+        if (!entry.getValue().getElements().isEmpty()) {
+          pageUris.add(URI.create(
+              baseUri + "/page?book=" + URLEncoder.encode(pageRef.getBookName(), StandardCharsets.UTF_8)
+                  + "&path=" + URLEncoder.encode(pageRef.getPath(), StandardCharsets.UTF_8)
+          ));
+        }
+      }
+      if (pageUris.isEmpty()) {
+        pageRatio = 0;
+      }
+      PrintStream out = System.out;
+      out.println(
+          "Books: " + siteOptions.books + ", pages: " + site.getPages().size() + ", depth: " + siteOptions.depth
+              + ", fanOut: " + siteOptions.fanOut + ", newsDensity: " + siteOptions.newsDensity
+              + ", touchRate: " + touchRate + "/s"
+      );
+      if (touchRate > 0) {
+        List<PageRef> pageRefs = new ArrayList<>(site.getPages().keySet());
+        Random random = new Random(siteOptions.seed);
+        toucher = Executors.newSingleThreadScheduledExecutor();
+        toucher.scheduleAtFixedRate(
+            () -> site.touch(pageRefs.get(random.nextInt(pageRefs.size()))),
+            0,
+            Math.max(1, (long) (TimeUnit.SECONDS.toMicros(1) / touchRate)),
+            TimeUnit.MICROSECONDS
+        );
+      }
+      out.printf(
+          "%8s %10s %10s %10s %10s %10s %8s %8s %8s %10s%n",
+          "threads", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors", "gc", "gc ms", "alloc MB/s"
+      );
+      HttpClient client = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .connectTimeout(Duration.ofSeconds(10))
+          .build();
+      for (int threads : concurrency) {
+        run(client, threads, warmup, allUris, topUris, feedUris, pageUris, feedRatio, pageRatio, null, null);
+        Latencies[] latencies = new Latencies[threads];
+        AtomicLong errors = new AtomicLong();
+        GcSample gcBefore = new GcSample();
+        long elapsed = run(
+            client,
+            threads,
+            duration,
+            allUris,
+            topUris,
+            feedUris,
+            pageUris,
+            feedRatio,
+            pageRatio,
+            latencies,
+            errors
+        );
+        GcSample gcAfter = new GcSample();
+        report(out, threads, elapsed, latencies, errors.get(), gcBefore, gcAfter);
+      }
+      out.println("Pages captured: " + site.getCaptures());
+    } finally {
+      if (toucher != null) {
+        toucher.shutdownNow();
+      }
+      try {
+        tomcat.stop();
+        tomcat.destroy();
+      } catch (LifecycleException e) {
+        e.printStackTrace(System.err);
+      }
+      site.delete();
+    }
+  }
+
+  /**
+   * Runs a closed loop of client threads for the given time.
+   *
+   * @param  latencies  the latencies of each thread, or {@code null} to not record (warm-up)
+   *
+   * @return  the elapsed nanoseconds
+   */
+  private static long run(
+      HttpClient client,
+      int threads,
+      long nanos,
+      List<URI> allUris,
+      List<URI> topUris,
+      List<URI> feedUris,
+      List<URI> pageUris,
+      double feedRatio,
+      double pageRatio,
+      Latencies[] latencies,
+      AtomicLong errors
+  ) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    long[] startTime = new long[1];
+    for (int i = 0; i < threads; i++) {
+      final Latencies recorded = new Latencies();
+      if (latencies != null) {
+        latencies[i] = recorded;
+      }
+      final Random random = new Random(i);
+      Thread thread = new Thread(() -> {
+        // The last ETag of each feed, sent as a conditional request
+        Map<URI, String> etags = new HashMap<>();
+        try {
+          start.await();
+          long end = startTime[0] + nanos;
+          while (System.nanoTime() < end) {
+            URI uri;
+            double r = random.nextDouble();
+            if (r < feedRatio) {
+              uri = feedUris.get(random.nextInt(feedUris.size()));
+            } else if (r < feedRatio + pageRatio) {
+              uri = pageUris.get(random.nextInt(pageUris.size()));
+            } else if (r < feedRatio + pageRatio + (1 - feedRatio - pageRatio) / 2) {
+              uri = allUris.get(random.nextInt(allUris.size()));
+            } else {
+              uri = topUris.get(random.nextInt(topUris.size()));
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60));
+            String etag = etags.get(uri);
+            if (etag != null) {
+              request.header("If-None-Match", etag);
+            }
+            long requestStart = System.nanoTime();
+            try {
+              HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+              long latency = System.nanoTime() - requestStart;
+              int status = response.statusCode();
+              if (status == 200 || status == 304) {
+                recorded.add(latency);
+                response.headers().firstValue("ETag").ifPresent(e -> etags.put(uri, e));
+              } else if (errors != null) {
+                errors.incrementAndGet();
+              }
+            } catch (IOException e) {
+              if (errors != null) {
+                errors.incrementAndGet();
+              }
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      }, LoadTest.class.getSimpleName() + "-client-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    startTime[0] = System.nanoTime();
+    start.countDown();
+    done.await();
+    return System.nanoTime() - startTime[0];
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+  }
+
+  private static void report(
+      PrintStream out,
+      int threads,
+      long elapsed,
+      Latencies[] latencies,
+      long errors,
+      GcSample gcBefore,
+      GcSample gcAfter
+  ) {
+    int total = 0;
+    for (Latencies l : latencies) {
+      total += l.size;
+    }
+    long[] sorted = new long[total];
+    int pos = 0;
+    for (Latencies l : latencies) {
+      System.arraycopy(l.values, 0, sorted, pos, l.size);
+      pos += l.size;
+    }
+    Arrays.sort(sorted);
+    double seconds = elapsed / 1e9;
+    out.printf(
+        "%8d %10.1f %10.3f %10.3f %10.3f %10.3f %8d %8d %8d %10.1f%n",
+        threads,
+        total / seconds,
+        percentile(sorted, 0.50),
+        percentile(sorted, 0.99),
+        percentile(sorted, 0.999),
+        percentile(sorted, 1.0),
+        errors,
+        gcAfter.collections - gcBefore.collections,
+        gcAfter.collectionMillis - gcBefore.collectionMillis,
+        Math.max(0, gcAfter.allocatedBytes - gcBefore.allocatedBytes) / seconds / (1024 * 1024)
+    );
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.aoapps.html.servlet.DocumentEE;
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.news.model.News;
+import com.semanticcms.news.servlet.impl.NewsImpl;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Serves the news queries of the load test:
+ *
+ * <ul>
+ *   <li>{@code /news/all?book=} - all news of a book, as listed on a news page</li>
+ *   <li>{@code /news/top?book=&limit=} - the newest news of a book, as shown in a typical feed</li>
+ *   <li>{@code /feed?path=} - a feed by its RSS servlet path, served from the {@link RssFeedCache} when
+ *       current</li>
+ *   <li>{@code /page?book=&path=} - the news elements of a page, captured and rendered as when the page is
+ *       served</li>
+ * </ul>
+ *
+ * <p>The news queries list the fields of each news as plain text.  A page is captured through the
+ * {@link SyntheticSite}, resolving the target of each news element, then each element is written by
+ * {@link NewsImpl#writeNewsImpl(jakarta.servlet.http.HttpServletRequest, com.aoapps.html.any.AnyPalpableContent, com.semanticcms.core.model.ElementContext, com.semanticcms.news.model.News, com.semanticcms.core.servlet.PageIndex)}.
+ * Only the news elements are rendered, without the theme and views of a SemanticCMS page.</p>
+ */
+class LoadTestServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient SyntheticSite site;
+
+  LoadTestServlet(SyntheticSite site) {
+    this.site = site;
+  }
+
+  private Page getRootPage(HttpServletRequest request) {
+    String book = request.getParameter("book");
+    for (Page rootPage : site.getRootPages()) {
+      if (rootPage.getPageRef().getBookName().equals(book)) {
+        return rootPage;
+      }
+    }
+    return null;
+  }
+
+  private static void write(List<News> news, PrintWriter out) {
+    for (News n : news) {
+      out.print(n.getBook());
+      out.print('\t');
+      out.print(n.getTargetPage());
+      out.print('\t');
+      out.print(n.getTitle());
+      out.print('\t');
+      out.println(n.getPubDate());
+    }
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+    String pathInfo = request.getServletPath() + (request.getPathInfo() == null ? "" : request.getPathInfo());
+    switch (pathInfo) {
+      case "/news/all":
+      case "/news/top": {
+        Page rootPage = getRootPage(request);
+        if (rootPage == null) {
+          response.sendError(HttpServletResponse.SC_NOT_FOUND);
+          return;
+        }
+        List<News> news;
+        if ("/news/all".equals(pathInfo)) {
+          news = NewsUtils.findAllNews(getServletContext(), request, response, rootPage);
+        } else {
+          String limit = request.getParameter("limit");
+          news = NewsUtils.findNews(
+              getServletContext(),
+              request,
+              response,
+              rootPage,
+              (limit == null || limit.isBlank()) ? 10 : Integer.parseInt(limit.trim()),
+              0
+          );
+        }
+        response.setContentType("text/plain");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        write(news, response.getWriter());
+        break;
+      }
+      case "/feed": {
+        String rssServletPath = request.getParameter("path");
+        PageRef pageRef = (rssServletPath == null) ? null
+            : RssPathRegistry.getInstance(getServletContext()).getPageRef(rssServletPath);
+        if (pageRef == null && rssServletPath != null) {
+          // Not yet indexed, search for the page as the feed servlet would probe for its source
+          for (PageRef pr : site.getPages().keySet()) {
+            if (RssUtils.getRssServletPath(pr).equals(rssServletPath)) {
+              pageRef = pr;
+              break;
+            }
+          }
+        }
+        Page page = (pageRef == null) ? null : site.getPage(pageRef);
+        if (page == null) {
+          response.sendError(HttpServletResponse.SC_NOT_FOUND);
+          return;
+        }
+        RssFeedCache feedCache = RssFeedCache.getInstance(getServletContext());
+        RssFeedCache.Feed feed = feedCache.get(request, pageRef);
+        if (feed == null) {
+          StringWriter buffer = new StringWriter();
+          try (PrintWriter out = new PrintWriter(buffer)) {
+            write(NewsUtils.findAllNews(getServletContext(), request, response, page), out);
+          }
+          feed = feedCache.put(request, pageRef, buffer.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (!RssFeedCache.checkNotModified(request, response, feed)) {
+          response.setContentType("text/plain");
+          response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+          response.setContentLength(feed.getContentLength());
+          feed.writeTo(response.getOutputStream());
+        }
+        break;
+      }
+      case "/page": {
+        String book = request.getParameter("book");
+        String path = request.getParameter("path");
+        Book siteBook = null;
+        for (Book b : site.getBooks()) {
+          if (b.getName().equals(book)) {
+            siteBook = b;
+            break;
+          }
+        }
+        Page template = (siteBook == null || path == null) ? null : site.getPages().get(new PageRef(siteBook, path));
+        if (template == null) {
+          response.sendError(HttpServletResponse.SC_NOT_FOUND);
+          return;
+        }
+        Page page = site.capturePage(getServletContext(), request, response, template.getPageRef(), CaptureLevel.BODY);
+        response.setContentType("text/html");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer out = response.getWriter();
+        DocumentEE document = new DocumentEE(getServletContext(), request, response, out);
+        for (Element element : page.getElements()) {
+          if (element instanceof News) {
+            // Synthetic pages have no sections, so no table of contents is included through the element context
+            NewsImpl.writeNewsImpl(request, document, null, (News) element, null);
+          }
+        }
+        break;
+      }
+      default:
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+}
@@ -0,0 +1,343 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Node;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.core.servlet.CurrentNode;
+import com.semanticcms.core.servlet.CurrentPage;
+import com.semanticcms.news.model.News;
+import com.semanticcms.news.servlet.impl.NewsImpl;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthetic books of pages with news, along with their page sources and book configuration in a document root.
+ * Pages are "captured" from generated templates in memory, while the sources allow the index to detect
+ * modifications as in production.
+ *
+ * <p>Each capture builds a new page, running every news element through
+ * {@link NewsImpl#doBodyImpl(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.news.model.News)}
+ * as the page would when captured by SemanticCMS.  News may target pages in other books, which are captured through
+ * this same site, pages in books that are not configured, or later news elements of the same page, to exercise the
+ * target cache, missing-book, and deferred resolution of targets.</p>
+ */
+final class SyntheticSite implements NewsCapturer {
+
+  /**
+   * The options of the generated books.
+   */
+  static final class Options {
+
+    int books = 3;
+    int depth = 3;
+    int fanOut = 6;
+    double newsDensity = 0.3;
+    int newsPerPage = 2;
+    double crossBookTargets = 0.2;
+    double missingBookTargets = 0.05;
+    double forwardTargets = 0.2;
+    long seed;
+  }
+
+  private static final String MISSING_BOOK = "/missing";
+
+  private final File docBase;
+  private final Map<String, Book> books = new LinkedHashMap<>();
+  private final List<Page> rootPages = new ArrayList<>();
+  private final Map<PageRef, Page> pages = new LinkedHashMap<>();
+  private final AtomicLong captures = new AtomicLong();
+
+  SyntheticSite(Options options) throws IOException {
+    this.docBase = Files.createTempDirectory("semanticcms-news-loadtest-").toFile();
+    for (int i = 0; i < options.books; i++) {
+      Book book = new Book("/book" + i, null, true, Collections.emptySet(), new Properties());
+      books.put(book.getName(), book);
+    }
+    writeBooksProperties();
+    Random random = new Random(options.seed);
+    ZonedDateTime now = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    for (Book book : books.values()) {
+      rootPages.add(addPage(book, "/", options.depth, options, random, now));
+    }
+  }
+
+  /**
+   * Writes the configuration of the books, as read by {@link com.semanticcms.core.servlet.SemanticCMS}, so the
+   * targets of news are resolved to these books, or to the missing book, as in production.
+   */
+  private void writeBooksProperties() throws IOException {
+    StringBuilder booksProps = new StringBuilder();
+    booksProps.append("rootBook=").append(books.keySet().iterator().next()).append('\n');
+    int bookNum = 0;
+    for (String name : books.keySet()) {
+      bookNum++;
+      booksProps.append("books.").append(bookNum).append(".name=").append(name).append('\n');
+      booksProps.append("books.").append(bookNum).append(".cvsworkDirectory=")
+          .append(new File(docBase, name.substring(1)).getAbsolutePath()).append('\n');
+      booksProps.append("books.").append(bookNum).append(".allowRobots=true\n");
+      write(new File(docBase, name.substring(1) + "/book.properties"), "content.root=/index.jspx\n");
+    }
+    booksProps.append("missingBooks.1.name=").append(MISSING_BOOK).append('\n');
+    booksProps.append("missingBooks.1.base=https://example.com").append(MISSING_BOOK).append('\n');
+    write(new File(docBase, "WEB-INF/books.properties"), booksProps.toString());
+  }
+
+  private static void write(File file, String content) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Page addPage(
+      Book book,
+      String path,
+      int depth,
+      Options options,
+      Random random,
+      ZonedDateTime now
+  ) throws IOException {
+    PageRef pageRef = new PageRef(book, path);
+    Page page = new Page();
+    page.setPageRef(pageRef);
+    page.setTitle("Page " + pageRef);
+    if (depth > 0) {
+      String prefix = path.endsWith("/") ? path : (path + '/');
+      for (int i = 0; i < options.fanOut; i++) {
+        // Pages above the bottom level are directory index pages
+        String childPath = prefix + "p" + i + (depth > 1 ? "/" : "");
+        Page child = addPage(book, childPath, depth - 1, options, random, now);
+        page.addChildRef(new ChildRef(child.getPageRef()));
+      }
+    }
+    if (random.nextDouble() < options.newsDensity) {
+      int last = options.newsPerPage - 1;
+      for (int i = 0; i <= last; i++) {
+        News news = new News();
+        news.setId("news-" + i);
+        double target = random.nextDouble();
+        if (i < last && target < options.forwardTargets) {
+          // Forward reference to the last news of this page, which has its title set
+          news.setBook(book.getName());
+          news.setTargetPage(path);
+          news.setElement("news-" + last);
+        } else if (target < options.forwardTargets + options.missingBookTargets) {
+          news.setBook(MISSING_BOOK);
+          news.setTargetPage("/");
+        } else if (
+            target < options.forwardTargets + options.missingBookTargets + options.crossBookTargets
+                && !pages.isEmpty()
+        ) {
+          // Any page already generated, which may be in another book
+          List<PageRef> pageRefs = new ArrayList<>(pages.keySet());
+          PageRef targetRef = pageRefs.get(random.nextInt(pageRefs.size()));
+          news.setBook(targetRef.getBookName());
+          news.setTargetPage(targetRef.getPath());
+        } else {
+          news.setBook(book.getName());
+          news.setTargetPage(path);
+        }
+        if (i == last) {
+          news.setTitle("News " + i + " in " + pageRef);
+        }
+        // Other titles are resolved from their targets on each capture
+        news.setDescription("Synthetic news item");
+        news.setView("content");
+        // Spread over ten years of archive
+        news.setPubDate(now.minusMinutes(random.nextInt(10 * 365 * 24 * 60)));
+        page.addElement(news);
+      }
+    }
+    page.freeze();
+    pages.put(pageRef, page);
+    // Write the source, so the index may detect modifications
+    write(getSource(pageRef), "<!-- " + pageRef + " -->");
+    return page;
+  }
+
+  private File getSource(PageRef pageRef) {
+    String servletPath = pageRef.getServletPath();
+    return new File(docBase, (servletPath.endsWith("/") ? (servletPath + "index") : servletPath) + ".jspx");
+  }
+
+  /**
+   * Gets the document root containing the page sources.
+   */
+  File getDocBase() {
+    return docBase;
+  }
+
+  Collection<Book> getBooks() {
+    return Collections.unmodifiableCollection(books.values());
+  }
+
+  List<Page> getRootPages() {
+    return Collections.unmodifiableList(rootPages);
+  }
+
+  /**
+   * Gets the templates of the pages, which have the news elements as declared in their sources.
+   */
+  Map<PageRef, Page> getPages() {
+    return Collections.unmodifiableMap(pages);
+  }
+
+  /**
+   * Gets the template of the given page, which may refer to a book of the servlet context instead of the books of
+   * this site.
+   *
+   * @return  the template or {@code null} when not found
+   */
+  Page getPage(PageRef pageRef) {
+    Book book = books.get(pageRef.getBookName());
+    return (book == null) ? null : pages.get(new PageRef(book, pageRef.getPath()));
+  }
+
+  /**
+   * Gets the number of pages captured.
+   */
+  long getCaptures() {
+    return captures.get();
+  }
+
+  /**
+   * Touches the source of the given page, so its news is captured again on next use.
+   */
+  void touch(PageRef pageRef) {
+    File source = getSource(pageRef);
+    source.setLastModified(Math.max(System.currentTimeMillis(), source.lastModified() + 1000));
+  }
+
+  /**
+   * Removes the document root.
+   */
+  void delete() throws IOException {
+    try (var paths = Files.walk(docBase.toPath())) {
+      List<java.nio.file.Path> all = new ArrayList<>();
+      paths.forEach(all::add);
+      Collections.reverse(all);
+      for (java.nio.file.Path path : all) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Override
+  public Page capturePage(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    Page template = getPage(pageRef);
+    if (template == null) {
+      throw new ServletException("Page not found: " + pageRef);
+    }
+    captures.incrementAndGet();
+    Page page = new Page();
+    page.setPageRef(template.getPageRef());
+    page.setTitle(template.getTitle());
+    for (ChildRef childRef : template.getChildRefs()) {
+      page.addChildRef(childRef);
+    }
+    if (level.compareTo(CaptureLevel.META) >= 0) {
+      // Captures may be nested when resolving targets, restore the state of any enclosing capture
+      final CaptureLevel oldCaptureLevel = CaptureLevel.getCaptureLevel(request);
+      final Page oldCurrentPage = CurrentPage.getCurrentPage(request);
+      final Node oldCurrentNode = CurrentNode.getCurrentNode(request);
+      try {
+        CaptureLevel.setCaptureLevel(request, level);
+        CurrentPage.setCurrentPage(request, page);
+        for (Element element : template.getElements()) {
+          News news = copy((News) element);
+          page.addElement(news);
+          CurrentNode.setCurrentNode(request, news);
+          NewsImpl.doBodyImpl(servletContext, request, response, news);
+        }
+      } finally {
+        CurrentNode.setCurrentNode(request, oldCurrentNode);
+        CurrentPage.setCurrentPage(request, oldCurrentPage);
+        CaptureLevel.setCaptureLevel(request, oldCaptureLevel);
+      }
+      NewsImpl.checkCapturedPage(servletContext, request, response, page);
+    }
+    page.freeze();
+    return page;
+  }
+
+  /**
+   * Copies news as declared in its page source, before its target is resolved.
+   */
+  private static News copy(News template) {
+    News news = new News();
+    news.setId(template.getId());
+    news.setBook(template.getBook());
+    news.setTargetPage(template.getTargetPage());
+    news.setElement(template.getElement());
+    news.setView(template.getView());
+    news.setTitle(template.getTitle());
+    news.setDescription(template.getDescription());
+    news.setPubDate(template.getPubDate());
+    news.setAllowRobots(template.getAllowRobots());
+    return news;
+  }
+
+  @Override
+  public Map<PageRef, Page> capturePages(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Set<PageRef> pageRefs,
+      CaptureLevel level
+  ) throws ServletException, IOException {
+    Map<PageRef, Page> captured = new HashMap<>(pageRefs.size() * 4 / 3 + 1);
+    for (PageRef pageRef : pageRefs) {
+      captured.put(pageRef, capturePage(servletContext, request, response, pageRef, level));
+    }
+    return captured;
+  }
+}
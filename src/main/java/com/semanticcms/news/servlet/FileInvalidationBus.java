@@ -0,0 +1,199 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers invalidation events between nodes through a journal in a shared directory.  Each event is written as
+ * its own file, and every node polls the directory for the files written by the other nodes.
+ *
+ * <p>Event files are named by the time they were written, the node that wrote them, and a sequence number, so no
+ * two nodes ever write the same file.  Each file is written to a temporary file then moved into place, so a
+ * partially written event is never read.  Files older than the retention are removed by any node.  Events already
+ * in the journal when a node starts are not delivered to that node.</p>
+ *
+ * <p>Each event file contains three lines: the type, the book name, and the page path, which is empty for
+ * {@link InvalidationEvent.Type#BOOK_RELOADED}.</p>
+ */
+public final class FileInvalidationBus implements InvalidationBus {
+
+  private static final Logger logger = Logger.getLogger(FileInvalidationBus.class.getName());
+
+  private static final String FILE_EXTENSION = ".event";
+
+  private final File directory;
+  private final long retention;
+  private final String nodeId = UUID.randomUUID().toString().replace("-", "");
+  private final AtomicLong sequence = new AtomicLong();
+  private final LocalInvalidationBus local = new LocalInvalidationBus();
+  private final ScheduledExecutorService poller;
+
+  /**
+   * The names of the event files already seen.  Accessed by the poller thread only.
+   */
+  private final Set<String> seen = new HashSet<>();
+
+  /**
+   * Starts polling the given directory, creating it when missing.
+   *
+   * @param  pollInterval  the number of milliseconds between polls
+   * @param  retention  the number of milliseconds event files are kept
+   */
+  public FileInvalidationBus(File directory, long pollInterval, long retention) throws IOException {
+    this.directory = directory;
+    this.retention = retention;
+    Files.createDirectories(directory.toPath());
+    seen.addAll(Arrays.asList(listEventFiles()));
+    this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, FileInvalidationBus.class.getName());
+      thread.setDaemon(true);
+      return thread;
+    });
+    poller.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+  }
+
+  private String[] listEventFiles() {
+    String[] names = directory.list((dir, name) -> name.endsWith(FILE_EXTENSION));
+    return (names == null) ? new String[0] : names;
+  }
+
+  /**
+   * Delivers the event to the listeners of this node, then writes it to the journal for the other nodes.
+   */
+  @Override
+  public void publish(InvalidationEvent event) throws IOException {
+    local.publish(event);
+    String path = event.getPath();
+    String content = event.getType().name() + '\n' + event.getBook() + '\n' + (path == null ? "" : path) + '\n';
+    File file = new File(
+        directory,
+        String.format("%013d-%s-%d%s", System.currentTimeMillis(), nodeId, sequence.incrementAndGet(), FILE_EXTENSION)
+    );
+    File tempFile = File.createTempFile("event-", ".tmp", directory);
+    try {
+      Files.write(tempFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), file.toPath());
+      }
+    } finally {
+      Files.deleteIfExists(tempFile.toPath());
+    }
+  }
+
+  /**
+   * Delivers the events written by the other nodes since the last poll, in the order written, and removes the
+   * event files older than the retention.
+   */
+  private void poll() {
+    try {
+      String[] names = listEventFiles();
+      Arrays.sort(names);
+      long expired = System.currentTimeMillis() - retention;
+      Set<String> present = new HashSet<>(names.length * 4 / 3 + 1);
+      for (String name : names) {
+        present.add(name);
+        if (seen.add(name) && !name.contains('-' + nodeId + '-')) {
+          InvalidationEvent event = read(new File(directory, name));
+          if (event != null) {
+            local.publish(event);
+          }
+        }
+        if (getTime(name) < expired) {
+          try {
+            Files.deleteIfExists(new File(directory, name).toPath());
+          } catch (IOException e) {
+            // Another node may be removing it too, try again next poll
+          }
+        }
+      }
+      // Forget the files removed
+      seen.retainAll(present);
+    } catch (RuntimeException e) {
+      // Keep polling
+      logger.log(Level.WARNING, "Unable to poll invalidation journal: " + directory, e);
+    }
+  }
+
+  private static long getTime(String name) {
+    int pos = name.indexOf('-');
+    try {
+      return Long.parseLong(name.substring(0, pos == -1 ? name.length() : pos));
+    } catch (NumberFormatException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Reads an event file.
+   *
+   * @return  the event or {@code null} when removed or not a valid event
+   */
+  private static InvalidationEvent read(File file) {
+    try {
+      List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+      InvalidationEvent.Type type = InvalidationEvent.Type.valueOf(lines.get(0));
+      String path = lines.get(2);
+      return new InvalidationEvent(type, lines.get(1), path.isEmpty() ? null : path);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Skipping invalid invalidation event: " + file, e);
+      return null;
+    }
+  }
+
+  @Override
+  public void subscribe(Listener listener) {
+    local.subscribe(listener);
+  }
+
+  @Override
+  public void unsubscribe(Listener listener) {
+    local.unsubscribe(listener);
+  }
+
+  @Override
+  public void close() {
+    poller.shutdownNow();
+  }
+}
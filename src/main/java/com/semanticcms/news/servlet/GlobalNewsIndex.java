@@ -0,0 +1,378 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.PageRef;
+import jakarta.servlet.ServletContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Application-scoped index of the news in every page indexed by the {@link NewsIndex}, across all books, sorted by
+ * news natural order.
+ *
+ * <p>The index is only maintained once site-wide news is first requested by
+ * {@link NewsUtils#snapshotAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse)},
+ * which then adds the pages already indexed.  Until then, pages are indexed without updating this index.</p>
+ *
+ * <p>The {@linkplain NewsSummary summaries} of the news are kept in a skip list, updated as pages are indexed, so the
+ * index does not keep any news or captured pages reachable.  Each update of a page is assigned a new version,
+ * and its news is inserted and removed at that version.  Readers take {@linkplain #snapshot() snapshots} at the
+ * latest version, which see every page either entirely before or entirely after each update, without locking.
+ * Only updates are serialized.</p>
+ *
+ * <p>The news of a modified page is replaced once the page is captured again, and removed once its source is
+ * removed or the page is {@linkplain NewsIndex#invalidate(com.semanticcms.core.model.PageRef) invalidated}.  Removed news is kept until no open snapshot may still see it, so snapshots must be closed.</p>
+ *
+ * @see  NewsUtils#snapshotAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse)
+ */
+public final class GlobalNewsIndex {
+
+  private static final ScopeEE.Application.Attribute<GlobalNewsIndex> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(GlobalNewsIndex.class.getName());
+
+  /**
+   * Gets the global news index for the given servlet context.
+   */
+  public static GlobalNewsIndex getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new GlobalNewsIndex());
+  }
+
+  /**
+   * Orders summaries by the same fields as news natural order: newest publication date first, then by book, page,
+   * and id.
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  private static final Comparator<NewsSummary> NATURAL_ORDER =
+      Comparator.comparing(NewsSummary::getPubDate, Comparator.reverseOrder())
+          .thenComparing(NewsSummary::getBook)
+          .thenComparing(NewsSummary::getPage)
+          .thenComparing(NewsSummary::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  /**
+   * A news item present from the version it was added until the version it was removed.
+   */
+  private static final class Entry implements Comparable<Entry> {
+
+    private final NewsSummary news;
+    private final long sequence;
+    private final long added;
+    private volatile long removed = Long.MAX_VALUE;
+
+    private Entry(NewsSummary news, long sequence, long added) {
+      this.news = news;
+      this.sequence = sequence;
+      this.added = added;
+    }
+
+    private boolean isVisible(long version) {
+      return added <= version && version < removed;
+    }
+
+    /**
+     * Orders by news natural order, then by the order added, so distinct items that compare equal are all kept.
+     */
+    @Override
+    public int compareTo(Entry other) {
+      int diff = NATURAL_ORDER.compare(news, other.news);
+      return (diff != 0) ? diff : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+  /**
+   * The entries currently present for each page.
+   */
+  private final ConcurrentMap<PageRef, List<Entry>> byPage = new ConcurrentHashMap<>();
+
+  /**
+   * The entries removed but not yet purged, in the order removed.  Accessed only while holding the update lock.
+   */
+  private final Queue<Entry> removedEntries = new ArrayDeque<>();
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * The latest version visible to new snapshots.
+   */
+  private volatile long version;
+
+  /**
+   * The number of open snapshots at each version.
+   */
+  private final ConcurrentNavigableMap<Long, Integer> openSnapshots = new ConcurrentSkipListMap<>();
+
+  /**
+   * Entries removed at or before this version may have been purged, so no snapshot may be taken before it.
+   */
+  private volatile long purgedVersion;
+
+  /**
+   * Serializes updates, readers never lock.
+   */
+  private final Object updateLock = new Object();
+
+  /**
+   * Whether this index is maintained, which starts with the first snapshot of all news.
+   */
+  private volatile boolean enabled;
+
+  /**
+   * Creates an empty index.  Outside of tests, use {@link #getInstance(jakarta.servlet.ServletContext)}.
+   */
+  GlobalNewsIndex() {
+    // Nothing to initialize
+  }
+
+  /**
+   * Checks whether this index is maintained.  Until enabled, pages need not be updated.
+   */
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts maintaining this index.  Pages indexed before must then be added by the caller.
+   */
+  void enable() {
+    enabled = true;
+  }
+
+  /**
+   * Updates the news of the given page to its current news.  The current news is read while holding the update
+   * lock, so concurrent updates of the same page always leave its latest news.
+   *
+   * @param  currentNews  gets the summaries of the current news of the page or {@code null} when the page is no
+   *                      longer indexed
+   */
+  void update(PageRef pageRef, Supplier<List<NewsSummary>> currentNews) {
+    synchronized (updateLock) {
+      List<NewsSummary> news = currentNews.get();
+      List<Entry> oldEntries = byPage.get(pageRef);
+      if (oldEntries != null && news != null && oldEntries.size() == news.size()) {
+        boolean same = true;
+        for (int i = 0, size = news.size(); i < size; i++) {
+          if (oldEntries.get(i).news != news.get(i)) {
+            same = false;
+            break;
+          }
+        }
+        if (same) {
+          return;
+        }
+      }
+      long newVersion = version + 1;
+      if (news == null || news.isEmpty()) {
+        byPage.remove(pageRef);
+      } else {
+        List<Entry> newEntries = new ArrayList<>(news.size());
+        for (NewsSummary n : news) {
+          Entry entry = new Entry(n, sequence.incrementAndGet(), newVersion);
+          entries.add(entry);
+          newEntries.add(entry);
+        }
+        byPage.put(pageRef, Collections.unmodifiableList(newEntries));
+      }
+      if (oldEntries != null) {
+        for (Entry entry : oldEntries) {
+          entry.removed = newVersion;
+          removedEntries.add(entry);
+        }
+      }
+      // Publish the update to new snapshots
+      version = newVersion;
+      purge();
+    }
+  }
+
+  /**
+   * Removes all news, such as when the {@link NewsIndex} is cleared.
+   */
+  void clear() {
+    synchronized (updateLock) {
+      long newVersion = version + 1;
+      for (List<Entry> oldEntries : byPage.values()) {
+        for (Entry entry : oldEntries) {
+          entry.removed = newVersion;
+          removedEntries.add(entry);
+        }
+      }
+      byPage.clear();
+      version = newVersion;
+      purge();
+    }
+  }
+
+  /**
+   * Purges the entries removed before the oldest open snapshot.  Called while holding the update lock.
+   */
+  private void purge() {
+    long horizon = version;
+    // Announce the horizon before finding the oldest snapshot, so a snapshot registered after is retaken
+    purgedVersion = horizon;
+    Map.Entry<Long, Integer> oldest = openSnapshots.firstEntry();
+    if (oldest != null) {
+      horizon = Math.min(horizon, oldest.getKey());
+    }
+    Entry entry;
+    while ((entry = removedEntries.peek()) != null && entry.removed <= horizon) {
+      entries.remove(entry);
+      removedEntries.remove();
+    }
+  }
+
+  /**
+   * Takes a snapshot of the news of all indexed pages, sorted by news natural order.  The snapshot is not affected
+   * by later updates, and must be closed.
+   */
+  public Snapshot snapshot() {
+    while (true) {
+      long v = version;
+      openSnapshots.merge(v, 1, Integer::sum);
+      if (v >= purgedVersion) {
+        return new Snapshot(v);
+      }
+      // Entries visible at this version may have been purged, try again at a newer version
+      release(v);
+    }
+  }
+
+  private void release(long v) {
+    openSnapshots.computeIfPresent(v, (k, count) -> (count == 1) ? null : (count - 1));
+  }
+
+  /**
+   * Gets the number of news items currently indexed.
+   */
+  public int size() {
+    int size = 0;
+    for (List<Entry> pageEntries : byPage.values()) {
+      size += pageEntries.size();
+    }
+    return size;
+  }
+
+  /**
+   * A consistent view of the news of all indexed pages at a single version.  Any number of threads may iterate a
+   * snapshot concurrently.
+   */
+  public final class Snapshot implements Iterable<NewsSummary>, AutoCloseable {
+
+    private final long version;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Snapshot(long version) {
+      this.version = version;
+    }
+
+    /**
+     * Gets the version of the index seen by this snapshot.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Iterates the news of this snapshot, sorted by news natural order.
+     *
+     * @throws  IllegalStateException  when the snapshot has been closed
+     */
+    @Override
+    public Iterator<NewsSummary> iterator() {
+      if (closed.get()) {
+        throw new IllegalStateException("Snapshot closed");
+      }
+      Iterator<Entry> iter = entries.iterator();
+      return new Iterator<>() {
+        private NewsSummary next;
+
+        @Override
+        public boolean hasNext() {
+          while (next == null && iter.hasNext()) {
+            Entry entry = iter.next();
+            if (entry.isVisible(version)) {
+              next = entry.news;
+            }
+          }
+          return next != null;
+        }
+
+        @Override
+        public NewsSummary next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          NewsSummary n = next;
+          next = null;
+          return n;
+        }
+      };
+    }
+
+    /**
+     * Streams the news of this snapshot, sorted by news natural order.
+     */
+    public Stream<NewsSummary> stream() {
+      return StreamSupport.stream(
+          Spliterators.spliteratorUnknownSize(
+              iterator(),
+              Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE
+          ),
+          false
+      );
+    }
+
+    /**
+     * Releases this snapshot, allowing the news removed since to be purged.
+     */
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(version);
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Delivers {@linkplain InvalidationEvent invalidation events} to the news caches of every node serving the same
+ * books.  An event published on any node is delivered to the listeners of every node, including the publishing
+ * node.
+ *
+ * <p>The bus of each web application is selected by {@link NewsInvalidation}.</p>
+ *
+ * @see  LocalInvalidationBus
+ * @see  FileInvalidationBus
+ */
+public interface InvalidationBus extends Closeable {
+
+  /**
+   * Receives invalidation events.
+   */
+  @FunctionalInterface
+  interface Listener {
+
+    /**
+     * Called for each event, from any thread.
+     */
+    void onInvalidation(InvalidationEvent event);
+  }
+
+  /**
+   * Publishes an event to all nodes.
+   */
+  void publish(InvalidationEvent event) throws IOException;
+
+  /**
+   * Adds a listener for the events of all nodes.
+   */
+  void subscribe(Listener listener);
+
+  /**
+   * Removes a listener.
+   */
+  void unsubscribe(Listener listener);
+
+  /**
+   * Stops receiving events from other nodes.
+   */
+  @Override
+  void close() throws IOException;
+}
@@ -0,0 +1,136 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.PageRef;
+import java.util.Objects;
+
+/**
+ * An event that invalidates the news cached for some pages, published through an {@link InvalidationBus} so every
+ * node serving the same books may drop the affected entries.
+ *
+ * <p>Events identify pages by book name and path, so they may be sent between nodes.</p>
+ */
+public final class InvalidationEvent {
+
+  /**
+   * The types of invalidation.
+   */
+  public enum Type {
+    /**
+     * A single page has changed.
+     */
+    PAGE_CHANGED,
+
+    /**
+     * A book has been reloaded, so all its pages may have changed.
+     */
+    BOOK_RELOADED,
+
+    /**
+     * A page and all its descendants may have changed.
+     */
+    SUBTREE_INVALIDATED
+  }
+
+  /**
+   * Creates an event for a single changed page.
+   */
+  public static InvalidationEvent pageChanged(PageRef pageRef) {
+    return new InvalidationEvent(Type.PAGE_CHANGED, pageRef.getBookName(), pageRef.getPath());
+  }
+
+  /**
+   * Creates an event for a reloaded book.
+   */
+  public static InvalidationEvent bookReloaded(String book) {
+    return new InvalidationEvent(Type.BOOK_RELOADED, book, null);
+  }
+
+  /**
+   * Creates an event for a page and all its descendants.
+   */
+  public static InvalidationEvent subtreeInvalidated(PageRef pageRef) {
+    return new InvalidationEvent(Type.SUBTREE_INVALIDATED, pageRef.getBookName(), pageRef.getPath());
+  }
+
+  private final Type type;
+  private final String book;
+  private final String path;
+
+  /**
+   * Creates an event, such as when received by an {@link InvalidationBus} from another node.
+   *
+   * @param  path  the path of the page or {@code null} for {@link Type#BOOK_RELOADED}
+   *
+   * @throws  IllegalArgumentException  when the path is missing for a page or provided for a book
+   */
+  public InvalidationEvent(Type type, String book, String path) {
+    this.type = Objects.requireNonNull(type);
+    this.book = Objects.requireNonNull(book);
+    if ((type == Type.BOOK_RELOADED) != (path == null)) {
+      throw new IllegalArgumentException("Path must be provided for pages only: " + type + ", " + path);
+    }
+    this.path = path;
+  }
+
+  @Override
+  public String toString() {
+    return (path == null) ? (type + ":" + book) : (type + ":" + book + ':' + path);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof InvalidationEvent)) {
+      return false;
+    }
+    InvalidationEvent other = (InvalidationEvent) obj;
+    return type == other.type && book.equals(other.book) && Objects.equals(path, other.path);
+  }
+
+  @Override
+  public int hashCode() {
+    return (type.hashCode() * 31 + book.hashCode()) * 31 + Objects.hashCode(path);
+  }
+
+  /**
+   * Gets the type of invalidation.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Gets the name of the book.
+   */
+  public String getBook() {
+    return book;
+  }
+
+  /**
+   * Gets the path of the page or {@code null} for {@link Type#BOOK_RELOADED}.
+   */
+  public String getPath() {
+    return path;
+  }
+}
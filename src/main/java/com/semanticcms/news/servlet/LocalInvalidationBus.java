@@ -0,0 +1,68 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers invalidation events within a single JVM only.  This is the default when no other bus is configured.
+ */
+public final class LocalInvalidationBus implements InvalidationBus {
+
+  private static final Logger logger = Logger.getLogger(LocalInvalidationBus.class.getName());
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Delivers the event to all listeners in the calling thread.  A listener that fails is logged, and does not
+   * prevent delivery to the other listeners.
+   */
+  @Override
+  public void publish(InvalidationEvent event) {
+    for (Listener listener : listeners) {
+      try {
+        listener.onInvalidation(event);
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Unable to deliver invalidation event: " + event, e);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Listener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void unsubscribe(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void close() {
+    // Nothing to close
+  }
+}
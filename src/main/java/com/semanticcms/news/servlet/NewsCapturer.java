@@ -0,0 +1,101 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.core.servlet.CapturePage;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Captures the pages indexed by the {@link NewsIndex} and the pages targeted by news, in place of
+ * {@link CapturePage}.  Registered per servlet context, such as by benchmarks and load tests that generate synthetic
+ * page trees in memory.
+ *
+ * <p>Pages are captured by {@link CapturePage} when no capturer is registered.</p>
+ */
+public interface NewsCapturer {
+
+  /**
+   * Gets the capturer registered for the given servlet context.
+   *
+   * @return  the capturer or {@code null} when pages are captured by {@link CapturePage}
+   */
+  static NewsCapturer getInstance(ServletContext servletContext) {
+    return applicationAttribute().context(servletContext).get();
+  }
+
+  /**
+   * Registers the capturer for the given servlet context.  Must be registered before the {@link NewsIndex} is first
+   * used, such as from a {@link jakarta.servlet.ServletContainerInitializer}.
+   *
+   * @param  capturer  the capturer or {@code null} to capture pages with {@link CapturePage}
+   *
+   * @throws  IllegalStateException  when the {@link NewsIndex} has already been created
+   */
+  static void setInstance(ServletContext servletContext, NewsCapturer capturer) throws IllegalStateException {
+    if (servletContext.getAttribute(NewsIndex.class.getName()) != null) {
+      throw new IllegalStateException("NewsIndex already created");
+    }
+    applicationAttribute().context(servletContext).set(capturer);
+  }
+
+  private static ScopeEE.Application.Attribute<NewsCapturer> applicationAttribute() {
+    return ScopeEE.APPLICATION.attribute(NewsCapturer.class.getName());
+  }
+
+  /**
+   * Captures a single page.
+   *
+   * @see  CapturePage#capturePage(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.PageReferrer, com.semanticcms.core.servlet.CaptureLevel)
+   */
+  Page capturePage(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      CaptureLevel level
+  ) throws ServletException, IOException;
+
+  /**
+   * Captures multiple pages, possibly concurrently.
+   *
+   * @see  CapturePage#capturePages(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, java.util.Set, com.semanticcms.core.servlet.CaptureLevel)
+   */
+  Map<PageRef, Page> capturePages(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Set<PageRef> pageRefs,
+      CaptureLevel level
+  ) throws ServletException, IOException;
+}
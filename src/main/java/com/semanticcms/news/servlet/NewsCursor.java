@@ -0,0 +1,192 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.SemanticCMS;
+import com.semanticcms.news.model.News;
+import jakarta.servlet.ServletContext;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * An immutable position in news natural order, identifying a news item by its publication date, the page it is in,
+ * and its id, for resuming pagination from the last item seen.
+ *
+ * <p>Unlike {@link News}, a cursor does not refer to any captured page, so it may be kept between requests or
+ * serialized by {@link #toString()} into a URL parameter and read back by {@link #valueOf(java.lang.String)}.</p>
+ *
+ * @see  NewsUtils#findNewsAfter(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsCursor, int)
+ */
+public final class NewsCursor {
+
+  private final ZonedDateTime pubDate;
+  private final String book;
+  private final String page;
+  private final String id;
+
+  /**
+   * @param  book  the name of the book the news is in
+   * @param  page  the path of the page the news is in
+   * @param  id  the id of the news, which may be {@code null}
+   */
+  public NewsCursor(ZonedDateTime pubDate, String book, String page, String id) {
+    this.pubDate = Objects.requireNonNull(pubDate, "pubDate");
+    this.book = Objects.requireNonNull(book, "book");
+    this.page = Objects.requireNonNull(page, "page");
+    this.id = id;
+  }
+
+  /**
+   * Gets the cursor at the given news item.
+   */
+  public static NewsCursor of(News news) {
+    PageRef pageRef = news.getPage().getPageRef();
+    return new NewsCursor(news.getPubDate(), pageRef.getBookName(), pageRef.getPath(), news.getId());
+  }
+
+  /**
+   * Gets the cursor at the given news summary.
+   */
+  public static NewsCursor of(NewsSummary news) {
+    return new NewsCursor(news.getPubDate(), news.getBook(), news.getPage(), news.getId());
+  }
+
+  /**
+   * Reads a cursor serialized by {@link #toString()}.
+   *
+   * @throws  IllegalArgumentException  when not a serialized cursor
+   */
+  public static NewsCursor valueOf(String value) throws IllegalArgumentException {
+    String[] fields = value.split(",", -1);
+    if (fields.length != 4) {
+      throw new IllegalArgumentException("Not a news cursor: " + value);
+    }
+    try {
+      String id = decode(fields[3]);
+      return new NewsCursor(
+          ZonedDateTime.parse(decode(fields[0])),
+          decode(fields[1]),
+          decode(fields[2]),
+          id.isEmpty() ? null : id
+      );
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Not a news cursor: " + value, e);
+    }
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static String decode(String value) {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Serializes this cursor, as read back by {@link #valueOf(java.lang.String)}.  The fields are URL-encoded and
+   * separated by commas, so the result contains no spaces or reserved characters other than commas and percent
+   * signs.
+   */
+  @Override
+  public String toString() {
+    return encode(pubDate.toString()) + ',' + encode(book) + ',' + encode(page) + ','
+        + (id == null ? "" : encode(id));
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof NewsCursor)) {
+      return false;
+    }
+    NewsCursor other = (NewsCursor) obj;
+    return pubDate.equals(other.pubDate)
+        && book.equals(other.book)
+        && page.equals(other.page)
+        && Objects.equals(id, other.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pubDate, book, page, id);
+  }
+
+  /**
+   * Gets the publication date of the news.
+   */
+  public ZonedDateTime getPubDate() {
+    return pubDate;
+  }
+
+  /**
+   * Gets the name of the book the news is in.
+   */
+  public String getBook() {
+    return book;
+  }
+
+  /**
+   * Gets the path of the page the news is in.
+   */
+  public String getPage() {
+    return page;
+  }
+
+  /**
+   * Gets the id of the news.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Creates news at this position, within a frozen page containing only the news, for comparing by news natural
+   * order.
+   *
+   * @throws  IllegalArgumentException  when the book of the news is not found
+   */
+  News toNews(ServletContext servletContext) throws IllegalArgumentException {
+    Book b = SemanticCMS.getInstance(servletContext).getBooks().get(book);
+    if (b == null) {
+      throw new IllegalArgumentException("Book not found: " + book);
+    }
+    Page p = new Page();
+    p.setPageRef(new PageRef(b, page));
+    News news = new News();
+    news.setId(id);
+    news.setPubDate(pubDate);
+    p.addElement(news);
+    p.freeze();
+    return news;
+  }
+}
@@ -0,0 +1,2237 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.lang.exception.WrappedException;
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.core.servlet.CapturePage;
+import com.semanticcms.core.servlet.PageUtils;
+import com.semanticcms.core.servlet.SemanticCMS;
+import com.semanticcms.news.model.News;
+import com.semanticcms.news.servlet.impl.NewsImpl;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Application-scoped index of the news found in each page and of the sorted news in each page subtree.
+ *
+ * <p>Each page is captured at {@link CaptureLevel#META} once, or {@link CaptureLevel#PAGE} with
+ * {@linkplain #NEWS_ONLY_INIT_PARAM news-only discovery}, then reused until its source resource is modified
+ * or it is {@linkplain #invalidate(com.semanticcms.core.model.PageRef) invalidated}.  A subtree remains valid only
+ * while every page it was built from remains current, so a change to any single page causes only that page to
+ * be captured again, while the results stay consistent with a fresh traversal.</p>
+ *
+ * <p>Pages whose source resource cannot be found are never reused across queries.</p>
+ *
+ * <p>The pages are saved to a {@linkplain #MANIFEST_DIRECTORY_INIT_PARAM manifest} periodically, once the
+ * {@link NewsIndexWarmer} is done, and on shutdown, then loaded on start-up by the next instance, so news is served
+ * immediately after a restart or redeploy, even one following a crash.  Loaded pages are checked against their
+ * sources on first use, like any other page.</p>
+ */
+public final class NewsIndex {
+
+  /**
+   * The context init parameter that controls the minimum number of milliseconds between checks of a page's
+   * source resource and dependencies for modification.  Defaults to one second, so modifications are seen within a
+   * second without checking every source on every query.  Set to zero to check on every request.  Either way, each
+   * source and dependency is checked at most once per request.  Modifications are seen immediately when
+   * {@link NewsSourceWatcher} is enabled or invalidated through {@link NewsInvalidation}.
+   */
+  public static final String RECHECK_INTERVAL_INIT_PARAM = NewsIndex.class.getName() + ".recheckInterval";
+
+  /**
+   * The context init parameter that enables capturing sibling pages concurrently, and sets the maximum number of
+   * pages captured together per request.  Defaults to one, which captures pages one at a time.
+   */
+  public static final String PARALLEL_CAPTURES_INIT_PARAM = NewsIndex.class.getName() + ".parallelCaptures";
+
+  /**
+   * The context init parameter that sets the directory where the manifest of indexed pages is saved and loaded on
+   * start-up.  Defaults to a directory for the virtual server and context path within the {@code java.io.tmpdir}
+   * system temporary directory, which survives redeploys, unlike the {@link ServletContext#TEMPDIR} of the
+   * application.  Set to {@code "false"} to disable the manifest.
+   */
+  public static final String MANIFEST_DIRECTORY_INIT_PARAM = NewsIndex.class.getName() + ".manifestDirectory";
+
+  /**
+   * The context init parameter that sets the number of milliseconds between saves of the manifest, when pages have
+   * been indexed or invalidated since the last save.  Defaults to five minutes.  Set to zero to save only once the
+   * {@link NewsIndexWarmer} is done and on shutdown.
+   */
+  public static final String MANIFEST_SAVE_INTERVAL_INIT_PARAM =
+      NewsIndex.class.getName() + ".manifestSaveInterval";
+
+  /**
+   * The context init parameter that sets the maximum number of milliseconds a query waits for the same query
+   * already being answered by another request, before taking over and answering it itself while any other waiting
+   * requests wait for it instead.  Defaults to 1 second, long enough to share a typical traversal while bounding
+   * the latency added when the other request is slow.  Set to zero to disable coalescing, so every request
+   * traverses the pages itself.
+   */
+  public static final String COALESCE_TIMEOUT_INIT_PARAM = NewsIndex.class.getName() + ".coalesceTimeout";
+
+  /**
+   * The context init parameter that enables news-only discovery.  When {@code "true"}, the sources of pages are
+   * scanned before capture, and pages that cannot declare news are captured at {@link CaptureLevel#PAGE}, which
+   * finds their children without processing their elements.  Defaults to {@code "false"}, which captures every
+   * page at {@link CaptureLevel#META}.
+   *
+   * @see  PageSources#mayContainNews(jakarta.servlet.ServletContext, com.semanticcms.core.model.PageRef, java.lang.String...)
+   */
+  public static final String NEWS_ONLY_INIT_PARAM = NewsIndex.class.getName() + ".newsOnly";
+
+  /**
+   * The context init parameter that sets the comma-separated text that marks a page source as able to declare
+   * news, for news-only discovery.  Defaults to the news and changelog tag libraries and the news servlet API.  The
+   * resources included by a page source are scanned for the same markers.  Set this when news is declared by other
+   * tag libraries.
+   */
+  public static final String NEWS_MARKERS_INIT_PARAM = NewsIndex.class.getName() + ".newsMarkers";
+
+  private static final Logger logger = Logger.getLogger(NewsIndex.class.getName());
+
+  /**
+   * Creates the news index on start-up, loading the manifest, then saves the manifest periodically and on shutdown.
+   */
+  @WebListener("Loads the manifest of indexed news pages on start-up, and saves it periodically and on shutdown.")
+  public static class Initializer implements ServletContextListener {
+
+    private ScheduledExecutorService saver;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+      ServletContext servletContext = event.getServletContext();
+      // Load the manifest now instead of on the first request
+      NewsIndex newsIndex = getInstance(servletContext);
+      String param = servletContext.getInitParameter(MANIFEST_SAVE_INTERVAL_INIT_PARAM);
+      long saveInterval = (param == null || param.isBlank()) ? (5 * 60 * 1000) : Long.parseLong(param.trim());
+      if (newsIndex.manifest != null && saveInterval > 0) {
+        saver = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, NewsIndex.class.getName() + ".manifestSaver");
+          thread.setDaemon(true);
+          return thread;
+        });
+        saver.scheduleWithFixedDelay(newsIndex::saveManifestIfModified, saveInterval, saveInterval,
+            TimeUnit.MILLISECONDS);
+      }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+      if (saver != null) {
+        saver.shutdownNow();
+        saver = null;
+      }
+      NewsIndex newsIndex = APPLICATION_ATTRIBUTE.context(event.getServletContext()).get();
+      if (newsIndex != null) {
+        try {
+          newsIndex.saveManifest();
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to save news manifest", e);
+        }
+      }
+    }
+  }
+
+  private static final ScopeEE.Application.Attribute<NewsIndex> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(NewsIndex.class.getName());
+
+  /**
+   * Gets the news index for the given servlet context.
+   */
+  public static NewsIndex getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new NewsIndex(servletContext));
+  }
+
+  /**
+   * A summary of the news in a page or subtree, so subtrees that cannot have any news selected by a
+   * {@link NewsQuery} are skipped without visiting their pages.
+   */
+  private static final class Synopsis {
+
+    private final boolean empty;
+
+    /**
+     * The distinct names of the books of the pages declaring news.
+     */
+    private final Set<String> books;
+
+    /**
+     * The longest path prefix shared by all pages declaring news, or {@code null} when no page declares news.
+     */
+    private final String commonPath;
+
+    /**
+     * The distinct views, which may include {@code null}.
+     */
+    private final Set<String> views;
+
+    private final boolean anyAllowRobots;
+    private final boolean anyDisallowRobots;
+
+    /**
+     * The earliest and latest publication dates, or {@code null} when no news has a publication date.
+     */
+    private final Instant minPubDate;
+    private final Instant maxPubDate;
+
+    /**
+     * Summarizes the news declared in a single page.
+     */
+    private Synopsis(PageRef pageRef, List<NewsSummary> news) {
+      this.empty = news.isEmpty();
+      Set<String> v = new HashSet<>();
+      boolean allow = false;
+      boolean disallow = false;
+      Instant min = null;
+      Instant max = null;
+      for (NewsSummary n : news) {
+        v.add(n.getView());
+        if (n.isAllowRobots()) {
+          allow = true;
+        } else {
+          disallow = true;
+        }
+        ZonedDateTime pubDate = n.getPubDate();
+        if (pubDate != null) {
+          Instant instant = pubDate.toInstant();
+          if (min == null || instant.isBefore(min)) {
+            min = instant;
+          }
+          if (max == null || instant.isAfter(max)) {
+            max = instant;
+          }
+        }
+      }
+      // Most pages have no news
+      this.books = empty ? Collections.emptySet() : Collections.singleton(pageRef.getBookName());
+      this.commonPath = empty ? null : pageRef.getPath();
+      this.views = v.isEmpty() ? Collections.emptySet() : v;
+      this.anyAllowRobots = allow;
+      this.anyDisallowRobots = disallow;
+      this.minPubDate = min;
+      this.maxPubDate = max;
+    }
+
+    /**
+     * Combines the synopses of a page and the subtrees of its children.
+     */
+    private Synopsis(Synopsis root, List<SubtreeEntry> children) {
+      boolean e = root.empty;
+      Set<String> b = new HashSet<>(root.books);
+      String path = root.commonPath;
+      Set<String> v = new HashSet<>(root.views);
+      boolean allow = root.anyAllowRobots;
+      boolean disallow = root.anyDisallowRobots;
+      Instant min = root.minPubDate;
+      Instant max = root.maxPubDate;
+      for (SubtreeEntry child : children) {
+        Synopsis synopsis = child.getSynopsis();
+        e &= synopsis.empty;
+        b.addAll(synopsis.books);
+        if (synopsis.commonPath != null) {
+          path = (path == null) ? synopsis.commonPath : getCommonPrefix(path, synopsis.commonPath);
+        }
+        v.addAll(synopsis.views);
+        allow |= synopsis.anyAllowRobots;
+        disallow |= synopsis.anyDisallowRobots;
+        if (synopsis.minPubDate != null && (min == null || synopsis.minPubDate.isBefore(min))) {
+          min = synopsis.minPubDate;
+        }
+        if (synopsis.maxPubDate != null && (max == null || synopsis.maxPubDate.isAfter(max))) {
+          max = synopsis.maxPubDate;
+        }
+      }
+      this.empty = e;
+      this.books = b;
+      this.commonPath = path;
+      this.views = v;
+      this.anyAllowRobots = allow;
+      this.anyDisallowRobots = disallow;
+      this.minPubDate = min;
+      this.maxPubDate = max;
+    }
+
+    private static String getCommonPrefix(String path1, String path2) {
+      int len = Math.min(path1.length(), path2.length());
+      int i = 0;
+      while (i < len && path1.charAt(i) == path2.charAt(i)) {
+        i++;
+      }
+      return (i == path1.length()) ? path1 : path1.substring(0, i);
+    }
+
+    /**
+     * Checks whether any news summarized may be selected by the given query.
+     */
+    private boolean mayMatch(NewsQuery query) {
+      if (empty) {
+        return false;
+      }
+      String book = query.getBook();
+      if (book != null && !books.contains(book)) {
+        return false;
+      }
+      // Some path may start with the prefix only when the prefix and the shared path agree up to the shorter
+      String pathPrefix = query.getPathPrefix();
+      if (
+          pathPrefix != null
+              && !commonPath.startsWith(pathPrefix)
+              && !pathPrefix.startsWith(commonPath)
+      ) {
+        return false;
+      }
+      String view = query.getView();
+      if (view != null && !views.contains(view)) {
+        return false;
+      }
+      Boolean allowRobots = query.getAllowRobots();
+      if (allowRobots != null && !(allowRobots ? anyAllowRobots : anyDisallowRobots)) {
+        return false;
+      }
+      ZonedDateTime from = query.getFrom();
+      if (from != null && (maxPubDate == null || maxPubDate.isBefore(from.toInstant()))) {
+        return false;
+      }
+      ZonedDateTime to = query.getTo();
+      return to == null || (minPubDate != null && minPubDate.isBefore(to.toInstant()));
+    }
+  }
+
+  /**
+   * The resources that the news of a page depends on besides the source of the page itself, with their last
+   * modified times when the page was captured.  These are the sources of the pages targeted by its news, which
+   * provide the titles and elements of the news, and the resources included by its source, which may declare news.
+   * A page is captured again when any of these are modified.
+   */
+  private static final class Dependencies {
+
+    private static final Dependencies NONE = new Dependencies(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<PageRef, Long> targets;
+    private final Map<String, Long> includes;
+
+    /**
+     * The newest of the last modified times.
+     */
+    private final long lastModified;
+
+    /**
+     * Combines the dependencies and their last modified times, for the version of subtrees.
+     */
+    private final long hash;
+
+    private Dependencies(Map<PageRef, Long> targets, Map<String, Long> includes) {
+      this.targets = targets;
+      this.includes = includes;
+      long newest = 0;
+      long h = 0;
+      for (Map.Entry<PageRef, Long> entry : targets.entrySet()) {
+        newest = Math.max(newest, entry.getValue());
+        h += entry.getKey().hashCode() * 31L + entry.getValue();
+      }
+      for (Map.Entry<String, Long> entry : includes.entrySet()) {
+        newest = Math.max(newest, entry.getValue());
+        h += entry.getKey().hashCode() * 31L + entry.getValue();
+      }
+      this.lastModified = newest;
+      this.hash = h;
+    }
+
+    /**
+     * Creates dependencies with the given targets and includes.
+     */
+    private static Dependencies of(Map<PageRef, Long> targets, Map<String, Long> includes) {
+      return (targets.isEmpty() && includes.isEmpty()) ? NONE : new Dependencies(targets, includes);
+    }
+
+    /**
+     * Finds the dependencies of a captured page, getting their current last modified times.  The targets are the
+     * pages linked by its news, other than the page itself and pages in missing books.
+     */
+    private static Dependencies of(ServletContext servletContext, PageRef pageRef, Page page) {
+      Map<PageRef, Long> targets = Collections.emptyMap();
+      for (Element element : page.getElements()) {
+        if (element instanceof News) {
+          for (PageRef target : element.getPageLinks()) {
+            if (target.getBook() != null && !target.equals(pageRef)) {
+              if (targets.isEmpty()) {
+                targets = new HashMap<>();
+              }
+              targets.computeIfAbsent(target, ref -> PageSources.getLastModified(servletContext, ref));
+            }
+          }
+        }
+      }
+      Map<String, Long> includes = Collections.emptyMap();
+      for (String include : PageSources.getIncludes(servletContext, pageRef)) {
+        if (includes.isEmpty()) {
+          includes = new HashMap<>();
+        }
+        includes.put(include, PageSources.getResourceLastModified(servletContext, include));
+      }
+      return of(targets, includes);
+    }
+
+    /**
+     * Checks that no dependency has been modified, checking each dependency at most once per check pass.
+     */
+    private boolean isCurrent(NewsIndex index, long now) {
+      for (Map.Entry<PageRef, Long> entry : targets.entrySet()) {
+        if (index.getLastModified(entry.getKey(), now) != entry.getValue()) {
+          return false;
+        }
+      }
+      for (Map.Entry<String, Long> entry : includes.entrySet()) {
+        if (index.getResourceLastModified(entry.getKey(), now) != entry.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The news of a page, in document order and sorted by news natural order.
+   */
+  private static final class NewsLists {
+
+    private static final NewsLists EMPTY = new NewsLists(Collections.emptyList(), Collections.emptyList());
+
+    private final List<News> news;
+    private final List<News> sortedNews;
+
+    private NewsLists(List<News> news, List<News> sortedNews) {
+      this.news = news;
+      this.sortedNews = sortedNews;
+    }
+  }
+
+  /**
+   * Never cleared, since {@link NewsLists#EMPTY} is always strongly reachable.
+   */
+  private static final SoftReference<NewsLists> EMPTY_NEWS_LISTS = new SoftReference<>(NewsLists.EMPTY);
+
+  /**
+   * Already cleared, so the news is created on first use.
+   */
+  private static final SoftReference<NewsLists> CLEARED_NEWS_LISTS = new SoftReference<>(null);
+
+  /**
+   * The news found directly within a single page.
+   *
+   * <p>The news is kept as {@linkplain NewsSummary summaries}, which hold the fields of each news item and its
+   * target without referring to the captured page.  The captured page and its news are not kept.  The news
+   * served by the index is always created from the summaries, within a compact page, whether the page was captured
+   * or loaded from the {@linkplain NewsManifest manifest}.  This news is only softly reachable, and is created again
+   * with the same content once collected, so results do not depend on garbage collection.</p>
+   */
+  private static final class PageEntry {
+
+    private final PageRef pageRef;
+    private final long sourceLastModified;
+    private final String title;
+
+    /**
+     * Whether the page allows robots, including the setting inherited from its parent pages and book.
+     */
+    private final boolean allowRobots;
+
+    /**
+     * The summaries of the news, in document order.
+     */
+    private final List<NewsSummary> summaries;
+
+    /**
+     * The same summaries, sorted by news natural order.
+     */
+    private final List<NewsSummary> sortedSummaries;
+
+    /**
+     * The news, in the same orders as the summaries.
+     */
+    private volatile SoftReference<NewsLists> newsLists;
+
+    private final Synopsis synopsis;
+    private final Set<PageRef> childRefs;
+    private final Dependencies dependencies;
+    private volatile long checkedTime;
+
+    private PageEntry(
+        PageRef pageRef,
+        long sourceLastModified,
+        Page page,
+        boolean allowRobots,
+        Dependencies dependencies,
+        long checkedTime
+    ) {
+      this.pageRef = pageRef;
+      this.sourceLastModified = sourceLastModified;
+      this.dependencies = dependencies;
+      this.title = page.getTitle();
+      this.allowRobots = allowRobots;
+      List<News> found = new ArrayList<>();
+      for (Element element : page.getElements()) {
+        if (element instanceof News) {
+          found.add((News) element);
+        }
+      }
+      if (found.isEmpty()) {
+        // Most pages have no news
+        this.summaries = Collections.emptyList();
+        this.sortedSummaries = Collections.emptyList();
+        this.newsLists = EMPTY_NEWS_LISTS;
+      } else {
+        // Sort the captured news, since its natural order is defined by the news itself
+        List<News> sorted = new ArrayList<>(found);
+        Collections.sort(sorted);
+        Map<News, NewsSummary> byNews = new IdentityHashMap<>(found.size());
+        List<NewsSummary> s = new ArrayList<>(found.size());
+        for (News n : found) {
+          NewsSummary summary = new NewsSummary(pageRef, n, allowRobots);
+          byNews.put(n, summary);
+          s.add(summary);
+        }
+        List<NewsSummary> sortedS = new ArrayList<>(sorted.size());
+        for (News n : sorted) {
+          sortedS.add(byNews.get(n));
+        }
+        this.summaries = Collections.unmodifiableList(s);
+        this.sortedSummaries = Collections.unmodifiableList(sortedS);
+        this.newsLists = CLEARED_NEWS_LISTS;
+      }
+      this.synopsis = new Synopsis(pageRef, summaries);
+      Set<PageRef> children = new LinkedHashSet<>();
+      for (ChildRef childRef : page.getChildRefs()) {
+        PageRef childPageRef = childRef.getPageRef();
+        if (childPageRef.getBook() != null) {
+          children.add(childPageRef);
+        }
+      }
+      this.childRefs = Collections.unmodifiableSet(children);
+      this.checkedTime = checkedTime;
+    }
+
+    /**
+     * Gets the news, creating it from the summaries on first use and again once collected.
+     */
+    private NewsLists getNewsLists() {
+      NewsLists lists = newsLists.get();
+      if (lists == null) {
+        synchronized (this) {
+          lists = newsLists.get();
+          if (lists == null) {
+            lists = newNewsLists();
+            newsLists = new SoftReference<>(lists);
+          }
+        }
+      }
+      return lists;
+    }
+
+    /**
+     * Creates news from the summaries, within a frozen page containing only the title, robots setting, child
+     * pages, and news of this page.  The robots setting is the one found for the captured page, including the
+     * setting inherited from its parent pages and book, so the compact page allows robots the same.
+     */
+    private NewsLists newNewsLists() {
+      if (summaries.isEmpty()) {
+        return NewsLists.EMPTY;
+      }
+      Page page = new Page();
+      page.setPageRef(pageRef);
+      page.setTitle(title);
+      page.setAllowRobots(allowRobots);
+      for (PageRef childRef : childRefs) {
+        page.addChildRef(new ChildRef(childRef));
+      }
+      Map<NewsSummary, News> bySummary = new IdentityHashMap<>(summaries.size());
+      List<News> n = new ArrayList<>(summaries.size());
+      for (NewsSummary summary : summaries) {
+        News item = summary.toNews();
+        page.addElement(item);
+        bySummary.put(summary, item);
+        n.add(item);
+      }
+      page.freeze();
+      List<News> sorted = new ArrayList<>(sortedSummaries.size());
+      for (NewsSummary summary : sortedSummaries) {
+        sorted.add(bySummary.get(summary));
+      }
+      return new NewsLists(Collections.unmodifiableList(n), Collections.unmodifiableList(sorted));
+    }
+  }
+
+  /**
+   * Identifies the version of a subtree, changing whenever any page in the subtree or any of their
+   * {@linkplain Dependencies dependencies} is modified.
+   */
+  static final class Version {
+
+    private final String etag;
+    private final long lastModified;
+
+    Version(String etag, long lastModified) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Version)) {
+        return false;
+      }
+      Version other = (Version) obj;
+      return lastModified == other.lastModified && etag.equals(other.etag);
+    }
+
+    @Override
+    public int hashCode() {
+      return etag.hashCode();
+    }
+
+    /**
+     * Gets the strong entity tag, including surrounding quotes.
+     */
+    String getEtag() {
+      return etag;
+    }
+
+    /**
+     * Gets the newest of the publication dates and the modification times of page sources and their dependencies
+     * in the subtree.
+     */
+    long getLastModified() {
+      return lastModified;
+    }
+  }
+
+  /**
+   * The sorted news of a page and all its descendants, along with the exact page entries it was built from.
+   *
+   * <p>Each subtree is built from the subtrees of its children, so a change to a single page only rebuilds the
+   * subtrees along its path to the root, while the subtrees of all other children are reused.  The sorted news is
+   * merged from the sorted runs of the page and its children on first use.</p>
+   */
+  private static final class SubtreeEntry {
+
+    private final PageEntry root;
+    private final List<SubtreeEntry> children;
+    private final List<PageEntry> members;
+
+    /**
+     * The number of news items in all members.
+     */
+    private final int size;
+
+    /**
+     * The news, only softly reachable like the news of each page.
+     */
+    private volatile SoftReference<List<News>> news;
+
+    private volatile List<NewsSummary> summaries;
+    private volatile Version version;
+    private volatile SoftReference<NavigableMap<YearMonth, List<News>>> byMonth;
+    private volatile Synopsis synopsis;
+
+    private SubtreeEntry(PageEntry root, List<SubtreeEntry> children) {
+      this.root = root;
+      this.children = children;
+      if (children.isEmpty()) {
+        this.members = Collections.singletonList(root);
+      } else {
+        // Descendants reachable through more than one child are members only once
+        Set<PageEntry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<PageEntry> m = new ArrayList<>();
+        seen.add(root);
+        m.add(root);
+        for (SubtreeEntry child : children) {
+          for (PageEntry member : child.members) {
+            if (seen.add(member)) {
+              m.add(member);
+            }
+          }
+        }
+        this.members = Collections.unmodifiableList(m);
+      }
+      int s = 0;
+      for (PageEntry member : members) {
+        s += member.summaries.size();
+      }
+      this.size = s;
+    }
+
+    /**
+     * Gets the news of all members, sorted by news natural order.  This is a k-way merge of the sorted runs of the
+     * page and its children, performed on first use and again once collected.
+     */
+    private List<News> getNews() {
+      SoftReference<List<News>> ref = news;
+      List<News> n = (ref == null) ? null : ref.get();
+      if (n == null) {
+        if (children.isEmpty()) {
+          n = root.getNewsLists().sortedNews;
+        } else {
+          int total = root.summaries.size();
+          for (SubtreeEntry child : children) {
+            total += child.size;
+          }
+          List<List<News>> runs;
+          if (total == size) {
+            runs = new ArrayList<>(children.size() + 1);
+            runs.add(root.getNewsLists().sortedNews);
+            for (SubtreeEntry child : children) {
+              runs.add(child.getNews());
+            }
+          } else {
+            // Descendants are shared by more than one child, merge the distinct members instead
+            runs = new ArrayList<>(members.size());
+            for (PageEntry member : members) {
+              runs.add(member.getNewsLists().sortedNews);
+            }
+          }
+          n = Collections.unmodifiableList(merge(runs, size));
+        }
+        news = new SoftReference<>(n);
+      }
+      return n;
+    }
+
+    /**
+     * Gets the summaries of all members, sorted by news natural order.  Each news item has a single summary,
+     * shared by all subtrees containing it.
+     */
+    private List<NewsSummary> getSummaries() {
+      List<NewsSummary> s = summaries;
+      if (s == null) {
+        if (children.isEmpty()) {
+          s = root.sortedSummaries;
+        } else {
+          // Use the news of each member only once, since it may be created again once collected
+          List<List<News>> runs = new ArrayList<>(members.size());
+          Map<News, NewsSummary> byNews = new IdentityHashMap<>(size);
+          for (PageEntry member : members) {
+            List<News> sortedNews = member.getNewsLists().sortedNews;
+            runs.add(sortedNews);
+            for (int i = 0, len = sortedNews.size(); i < len; i++) {
+              byNews.put(sortedNews.get(i), member.sortedSummaries.get(i));
+            }
+          }
+          List<News> n = Collections.unmodifiableList(merge(runs, size));
+          List<NewsSummary> list = new ArrayList<>(size);
+          for (News item : n) {
+            list.add(byNews.get(item));
+          }
+          s = Collections.unmodifiableList(list);
+          news = new SoftReference<>(n);
+        }
+        summaries = s;
+      }
+      return s;
+    }
+
+    /**
+     * Gets the version, changing whenever any member is modified.
+     */
+    private Version getVersion() {
+      Version v = version;
+      if (v == null) {
+        // Combine the page and dependency versions with the newest publication date
+        long hash = 0xcbf29ce484222325L;
+        long lastModified = 0;
+        for (PageEntry member : members) {
+          hash = (hash ^ member.pageRef.hashCode()) * 0x100000001b3L;
+          hash = (hash ^ member.sourceLastModified) * 0x100000001b3L;
+          hash = (hash ^ member.dependencies.hash) * 0x100000001b3L;
+          lastModified = Math.max(lastModified, member.sourceLastModified);
+          lastModified = Math.max(lastModified, member.dependencies.lastModified);
+        }
+        for (PageEntry member : members) {
+          for (NewsSummary item : member.summaries) {
+            ZonedDateTime pubDate = item.getPubDate();
+            if (pubDate != null) {
+              lastModified = Math.max(lastModified, pubDate.toInstant().toEpochMilli());
+            }
+          }
+        }
+        hash = (hash ^ lastModified) * 0x100000001b3L;
+        hash = (hash ^ size) * 0x100000001b3L;
+        v = new Version('"' + Long.toHexString(hash) + '"', lastModified);
+        version = v;
+      }
+      return v;
+    }
+
+    /**
+     * Gets the news bucketed by the month of their publication date, in UTC.  Each bucket is sorted by news
+     * natural order.  News without a publication date are not included.
+     */
+    private NavigableMap<YearMonth, List<News>> getByMonth() {
+      SoftReference<NavigableMap<YearMonth, List<News>>> ref = byMonth;
+      NavigableMap<YearMonth, List<News>> m = (ref == null) ? null : ref.get();
+      if (m == null) {
+        m = new TreeMap<>();
+        for (News n : getNews()) {
+          ZonedDateTime pubDate = n.getPubDate();
+          if (pubDate != null) {
+            m.computeIfAbsent(getMonth(pubDate), k -> new ArrayList<>()).add(n);
+          }
+        }
+        m = Collections.unmodifiableNavigableMap(m);
+        byMonth = new SoftReference<>(m);
+      }
+      return m;
+    }
+
+    /**
+     * Gets the synopsis of the news of all members, combined from the page and its children on first use.
+     */
+    private Synopsis getSynopsis() {
+      Synopsis s = synopsis;
+      if (s == null) {
+        s = children.isEmpty() ? root.synopsis : new Synopsis(root.synopsis, children);
+        synopsis = s;
+      }
+      return s;
+    }
+  }
+
+  /**
+   * Merges sorted runs that share no news.  Ties are taken from the earlier run, so the result is stable.
+   *
+   * @param  size  the number of news items in all runs
+   */
+  private static List<News> merge(List<List<News>> runs, int size) {
+    // Cursors are the run index in the high bits and the position in the low bits
+    PriorityQueue<long[]> heads = new PriorityQueue<>(runs.size(), (c1, c2) -> {
+      int diff = runs.get((int) c1[0]).get((int) c1[1]).compareTo(runs.get((int) c2[0]).get((int) c2[1]));
+      return (diff != 0) ? diff : Long.compare(c1[0], c2[0]);
+    });
+    for (int i = 0; i < runs.size(); i++) {
+      if (!runs.get(i).isEmpty()) {
+        heads.add(new long[]{i, 0});
+      }
+    }
+    List<News> merged = new ArrayList<>(size);
+    long[] cursor;
+    while ((cursor = heads.poll()) != null) {
+      List<News> run = runs.get((int) cursor[0]);
+      merged.add(run.get((int) cursor[1]));
+      if (++cursor[1] < run.size()) {
+        heads.add(cursor);
+      }
+    }
+    return merged;
+  }
+
+  private static YearMonth getMonth(ZonedDateTime dateTime) {
+    return YearMonth.from(dateTime.withZoneSameInstant(ZoneOffset.UTC));
+  }
+
+  private final ServletContext servletContext;
+  private final long recheckInterval;
+  private final int parallelCaptures;
+
+  /**
+   * The markers scanned for in page sources, or {@code null} when news-only discovery is disabled.
+   */
+  private final String[] newsMarkers;
+
+  private final ConcurrentMap<PageRef, PageEntry> pages = new ConcurrentHashMap<>();
+
+  /**
+   * A last modified time found by a check pass.
+   */
+  private static final class Stat {
+
+    private final long checkedTime;
+    private final long lastModified;
+
+    private Stat(long checkedTime, long lastModified) {
+      this.checkedTime = checkedTime;
+      this.lastModified = lastModified;
+    }
+  }
+
+  /**
+   * The last modified times of page sources and dependencies found by the most recent check pass of each, keyed by
+   * {@link PageRef} for page sources and resource path for includes.  Many pages share the same dependencies, which
+   * are checked once per pass instead of once per page.
+   */
+  private final ConcurrentMap<Object, Stat> stats = new ConcurrentHashMap<>();
+  private final ConcurrentMap<PageRef, SubtreeEntry> subtrees = new ConcurrentHashMap<>();
+
+  /**
+   * Coalesces concurrent builds of the same subtree.
+   */
+  private final SingleFlight<PageRef, SubtreeEntry> subtreeFlights;
+
+  /**
+   * Coalesces concurrent top news queries with the same page and parameters.
+   */
+  private final SingleFlight<List<Object>, List<News>> topFlights;
+
+  /**
+   * Captures pages with {@link CapturePage}, resolving the targets of their news once each capture has completed.
+   * Used when no {@link NewsCapturer} is registered.
+   */
+  private static final NewsCapturer CAPTURE_PAGE = new NewsCapturer() {
+    @Override
+    public Page capturePage(
+        ServletContext servletContext,
+        HttpServletRequest request,
+        HttpServletResponse response,
+        PageRef pageRef,
+        CaptureLevel level
+    ) throws ServletException, IOException {
+      Page page = CapturePage.capturePage(servletContext, request, response, pageRef, level);
+      NewsImpl.checkCapturedPage(servletContext, request, response, page);
+      return page;
+    }
+
+    @Override
+    public Map<PageRef, Page> capturePages(
+        ServletContext servletContext,
+        HttpServletRequest request,
+        HttpServletResponse response,
+        Set<PageRef> pageRefs,
+        CaptureLevel level
+    ) throws ServletException, IOException {
+      Map<PageRef, Page> pages = CapturePage.capturePages(servletContext, request, response, pageRefs, level);
+      for (Page page : pages.values()) {
+        NewsImpl.checkCapturedPage(servletContext, request, response, page);
+      }
+      return pages;
+    }
+  };
+
+  private final NewsCapturer capturer;
+  private final NewsMetrics metrics;
+  private final NewsManifest manifest;
+
+  /**
+   * Whether pages have been indexed or invalidated since the manifest was last saved.
+   */
+  private volatile boolean manifestModified;
+  private final RssPathRegistry rssPathRegistry;
+  private final GlobalNewsIndex globalNewsIndex;
+
+  /**
+   * Whether the pages indexed before the global index was enabled have been added to it.
+   */
+  private volatile boolean globalNewsIndexLoaded;
+  private final Object globalNewsIndexLock = new Object();
+  private volatile NewsIndexWarmer warmer;
+
+  private NewsIndex(ServletContext servletContext) {
+    this.servletContext = servletContext;
+    NewsCapturer registered = NewsCapturer.getInstance(servletContext);
+    this.capturer = (registered == null) ? CAPTURE_PAGE : registered;
+    this.metrics = NewsMetrics.getInstance(servletContext);
+    this.rssPathRegistry = RssPathRegistry.getInstance(servletContext);
+    this.globalNewsIndex = GlobalNewsIndex.getInstance(servletContext);
+    String param = servletContext.getInitParameter(RECHECK_INTERVAL_INIT_PARAM);
+    this.recheckInterval = (param == null || param.isBlank()) ? 1000 : Long.parseLong(param.trim());
+    param = servletContext.getInitParameter(PARALLEL_CAPTURES_INIT_PARAM);
+    this.parallelCaptures = (param == null || param.isBlank()) ? 1 : Integer.parseInt(param.trim());
+    param = servletContext.getInitParameter(COALESCE_TIMEOUT_INIT_PARAM);
+    long coalesceTimeout = (param == null || param.isBlank()) ? 1000 : Long.parseLong(param.trim());
+    this.subtreeFlights = new SingleFlight<>(coalesceTimeout, metrics::recordCoalescedTraversal);
+    this.topFlights = new SingleFlight<>(coalesceTimeout, metrics::recordCoalescedTraversal);
+    param = servletContext.getInitParameter(NEWS_ONLY_INIT_PARAM);
+    if (param != null && Boolean.parseBoolean(param.trim())) {
+      param = servletContext.getInitParameter(NEWS_MARKERS_INIT_PARAM);
+      if (param == null || param.isBlank()) {
+        this.newsMarkers = PageSources.DEFAULT_NEWS_MARKERS;
+      } else {
+        List<String> markers = new ArrayList<>();
+        for (String marker : param.split(",")) {
+          marker = marker.trim();
+          if (!marker.isEmpty()) {
+            markers.add(marker);
+          }
+        }
+        this.newsMarkers = markers.toArray(new String[markers.size()]);
+      }
+    } else {
+      this.newsMarkers = null;
+    }
+    param = servletContext.getInitParameter(MANIFEST_DIRECTORY_INIT_PARAM);
+    File manifestDirectory;
+    if (param == null || param.isBlank()) {
+      // Distinct for each application, yet the same after a redeploy
+      manifestDirectory = new File(
+          new File(System.getProperty("java.io.tmpdir"), "semanticcms-news-manifest"),
+          URLEncoder.encode(
+              servletContext.getVirtualServerName() + servletContext.getContextPath(),
+              StandardCharsets.UTF_8
+          )
+      );
+    } else if ("false".equalsIgnoreCase(param.trim())) {
+      manifestDirectory = null;
+    } else {
+      manifestDirectory = new File(param.trim());
+    }
+    if (manifestDirectory == null) {
+      this.manifest = null;
+    } else {
+      this.manifest = new NewsManifest(manifestDirectory);
+      // Loaded pages have never been checked, so are checked against their sources on first use
+      for (NewsManifest.Record record : manifest.read(SemanticCMS.getInstance(servletContext).getBooks())) {
+        PageRef pageRef = record.getPageRef();
+        putPageEntry(new PageEntry(
+            pageRef,
+            record.getSourceLastModified(),
+            record.toPage(),
+            record.isAllowRobots(),
+            Dependencies.of(record.getTargets(), record.getIncludes()),
+            0
+        ));
+      }
+      // Already saved
+      manifestModified = false;
+    }
+    NewsInvalidation.getInstance(servletContext).subscribe(new NewsInvalidation.Subscriber() {
+      @Override
+      public void invalidatePages(Set<PageRef> pageRefs) {
+        for (PageRef pageRef : pageRefs) {
+          invalidate(pageRef);
+        }
+      }
+
+      @Override
+      public void invalidateBook(String book) {
+        NewsIndex.this.invalidateBook(book);
+      }
+    });
+  }
+
+  /**
+   * Checks that the given page entry is still the current entry and its source has not been modified.
+   * Removes the entry when its source has been modified.
+   */
+  private boolean isCurrent(PageEntry entry, long now) {
+    if (pages.get(entry.pageRef) != entry) {
+      return false;
+    }
+    if (
+        entry.sourceLastModified != PageSources.UNKNOWN
+            && (entry.checkedTime >= now || (now - entry.checkedTime) < recheckInterval)
+    ) {
+      // Already checked in this pass or recently
+      return true;
+    }
+    long lastModified = getLastModified(entry.pageRef, now);
+    if (lastModified != PageSources.UNKNOWN && lastModified == entry.sourceLastModified) {
+      if (entry.dependencies.isCurrent(this, now)) {
+        entry.checkedTime = now;
+        return true;
+      }
+      // A target or included resource modified, the page remains
+      pages.remove(entry.pageRef, entry);
+      return false;
+    }
+    if (pages.remove(entry.pageRef, entry) && lastModified == PageSources.UNKNOWN) {
+      // Source removed
+      rssPathRegistry.unregister(entry.pageRef);
+      updateGlobalNewsIndex(entry.pageRef);
+    }
+    return false;
+  }
+
+  /**
+   * Gets the last modified time of the source for the given page, checking at most once per check pass.
+   *
+   * @param  now  the time of the check pass
+   *
+   * @see  PageSources#getLastModified(jakarta.servlet.ServletContext, com.semanticcms.core.model.PageRef)
+   */
+  private long getLastModified(PageRef pageRef, long now) {
+    Stat stat = stats.get(pageRef);
+    if (stat == null || stat.checkedTime != now) {
+      stat = new Stat(now, PageSources.getLastModified(servletContext, pageRef));
+      stats.put(pageRef, stat);
+    }
+    return stat.lastModified;
+  }
+
+  /**
+   * Gets the last modified time of the given resource, checking at most once per check pass.
+   *
+   * @param  now  the time of the check pass
+   *
+   * @see  PageSources#getResourceLastModified(jakarta.servlet.ServletContext, java.lang.String)
+   */
+  private long getResourceLastModified(String resourcePath, long now) {
+    Stat stat = stats.get(resourcePath);
+    if (stat == null || stat.checkedTime != now) {
+      stat = new Stat(now, PageSources.getResourceLastModified(servletContext, resourcePath));
+      stats.put(resourcePath, stat);
+    }
+    return stat.lastModified;
+  }
+
+  private static final ScopeEE.Request.Attribute<Long> NOW_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(NewsIndex.class.getName() + ".now");
+
+  /**
+   * Gets the time of the check pass of the given request, which is the time of its first query.  All the queries
+   * of a request share the pass, so the RSS feed check and the queries of a page check each source at most once.
+   */
+  private static long getNow(HttpServletRequest request) {
+    Long now = NOW_REQUEST_ATTRIBUTE.context(request).get();
+    if (now == null) {
+      now = System.currentTimeMillis();
+      NOW_REQUEST_ATTRIBUTE.context(request).set(now);
+    }
+    return now;
+  }
+
+  /**
+   * Adds or replaces the entry for a page, registering its RSS feed and adding its news to the global index.
+   */
+  private void putPageEntry(PageEntry entry) {
+    pages.put(entry.pageRef, entry);
+    manifestModified = true;
+    rssPathRegistry.register(entry.pageRef);
+    updateGlobalNewsIndex(entry.pageRef);
+  }
+
+  /**
+   * Updates the global index to the summaries currently indexed for the given page, once the global index is
+   * enabled.
+   */
+  private void updateGlobalNewsIndex(PageRef pageRef) {
+    if (globalNewsIndex.isEnabled()) {
+      globalNewsIndex.update(pageRef, () -> {
+        PageEntry entry = pages.get(pageRef);
+        return (entry == null) ? null : entry.summaries;
+      });
+    }
+  }
+
+  /**
+   * Takes a snapshot of the global index.  The global index is enabled on first use, adding the pages already
+   * indexed.
+   *
+   * @see  NewsUtils#snapshotAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse)
+   */
+  GlobalNewsIndex.Snapshot snapshotAllNews() {
+    if (!globalNewsIndexLoaded) {
+      synchronized (globalNewsIndexLock) {
+        if (!globalNewsIndexLoaded) {
+          // Enable before adding, so pages indexed concurrently are either added here or update themselves
+          globalNewsIndex.enable();
+          for (PageRef pageRef : pages.keySet()) {
+            updateGlobalNewsIndex(pageRef);
+          }
+          globalNewsIndexLoaded = true;
+        }
+      }
+    }
+    return globalNewsIndex.snapshot();
+  }
+
+  /**
+   * Finds whether a captured page allows robots, including the setting inherited from its parent pages and book,
+   * as applied to RSS feeds and site maps.  This is recorded for the news of the page that has no setting of its
+   * own, and the parent pages are only captured when the page has news.
+   */
+  private boolean findAllowRobots(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) throws ServletException, IOException {
+    for (Element element : page.getElements()) {
+      if (element instanceof News) {
+        return PageUtils.findAllowRobots(servletContext, request, response, page);
+      }
+    }
+    // Not used without news
+    return false;
+  }
+
+  /**
+   * Gets the current entry for the given page, creating from the given page when it has no current entry.
+   */
+  private PageEntry getPageEntry(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      long now
+  ) throws ServletException, IOException {
+    PageRef pageRef = page.getPageRef();
+    PageEntry entry = pages.get(pageRef);
+    if (entry == null || !isCurrent(entry, now)) {
+      // The page may have been captured without the index, such as by the view
+      NewsImpl.checkCapturedPage(servletContext, request, response, page);
+      entry = new PageEntry(
+          pageRef,
+          getLastModified(pageRef, now),
+          page,
+          findAllowRobots(request, response, page),
+          Dependencies.of(servletContext, pageRef, page),
+          now
+      );
+      putPageEntry(entry);
+      metrics.recordPageCaptured(pageRef, page.getElements().size());
+    }
+    return entry;
+  }
+
+  /**
+   * Gets the current entry for the given page, capturing the page when it has no current entry.
+   */
+  private PageEntry getPageEntry(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef,
+      long now
+  ) throws ServletException, IOException {
+    PageEntry entry = pages.get(pageRef);
+    if (entry == null || !isCurrent(entry, now)) {
+      // Get the last modified before capture, so any modification during capture will be detected later
+      long lastModified = getLastModified(pageRef, now);
+      Page page = capturer.capturePage(servletContext, request, response, pageRef, getCaptureLevel(pageRef));
+      entry = new PageEntry(
+          pageRef,
+          lastModified,
+          page,
+          findAllowRobots(request, response, page),
+          Dependencies.of(servletContext, pageRef, page),
+          now
+      );
+      putPageEntry(entry);
+      metrics.recordPageCaptured(pageRef, page.getElements().size());
+    }
+    return entry;
+  }
+
+  /**
+   * Gets the level to capture the given page at for discovering news.
+   *
+   * @return  {@link CaptureLevel#PAGE} when news-only discovery is enabled and the page source cannot declare news,
+   *          otherwise {@link CaptureLevel#META}
+   *
+   * @see  #NEWS_ONLY_INIT_PARAM
+   */
+  private CaptureLevel getCaptureLevel(PageRef pageRef) {
+    return (newsMarkers == null || PageSources.mayContainNews(servletContext, pageRef, newsMarkers))
+        ? CaptureLevel.META
+        : CaptureLevel.PAGE;
+  }
+
+  /**
+   * Captures the given pages together, each at the level from
+   * {@link #getCaptureLevel(com.semanticcms.core.model.PageRef)}.
+   */
+  private Map<PageRef, Page> capturePages(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      List<PageRef> pageRefs
+  ) throws ServletException, IOException {
+    if (newsMarkers == null) {
+      return capturer.capturePages(
+          servletContext,
+          request,
+          response,
+          new LinkedHashSet<>(pageRefs),
+          CaptureLevel.META
+      );
+    }
+    Set<PageRef> meta = new LinkedHashSet<>();
+    Set<PageRef> pageOnly = new LinkedHashSet<>();
+    for (PageRef pageRef : pageRefs) {
+      if (getCaptureLevel(pageRef) == CaptureLevel.META) {
+        meta.add(pageRef);
+      } else {
+        pageOnly.add(pageRef);
+      }
+    }
+    Map<PageRef, Page> captured = new HashMap<>(pageRefs.size() * 4 / 3 + 1);
+    if (!meta.isEmpty()) {
+      captured.putAll(capturer.capturePages(servletContext, request, response, meta, CaptureLevel.META));
+    }
+    if (!pageOnly.isEmpty()) {
+      captured.putAll(capturer.capturePages(servletContext, request, response, pageOnly, CaptureLevel.PAGE));
+    }
+    return captured;
+  }
+
+  /**
+   * Gets the cached subtree for the given page when every page it was built from is still current.
+   *
+   * @return  the subtree or {@code null} when not cached or no longer current
+   */
+  private SubtreeEntry getCurrentSubtree(PageRef rootRef, long now) {
+    SubtreeEntry subtree = subtrees.get(rootRef);
+    if (subtree != null) {
+      for (PageEntry member : subtree.members) {
+        if (!isCurrent(member, now)) {
+          subtrees.remove(rootRef, subtree);
+          return null;
+        }
+      }
+    }
+    return subtree;
+  }
+
+  /**
+   * Gets the current entries for the given page and all its descendants, capturing only those pages not already
+   * current.
+   */
+  private List<PageEntry> getMembers(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      long now
+  ) throws ServletException, IOException {
+    if (parallelCaptures > 1) {
+      return getMembersParallel(request, response, page, now);
+    }
+    List<PageEntry> members = new ArrayList<>();
+    Set<PageRef> visited = new HashSet<>();
+    Queue<PageRef> queue = new ArrayDeque<>();
+    PageEntry rootEntry = getPageEntry(request, response, page, now);
+    members.add(rootEntry);
+    visited.add(rootEntry.pageRef);
+    queue.addAll(rootEntry.childRefs);
+    PageRef pageRef;
+    while ((pageRef = queue.poll()) != null) {
+      if (visited.add(pageRef)) {
+        PageEntry entry = getPageEntry(request, response, pageRef, now);
+        members.add(entry);
+        queue.addAll(entry.childRefs);
+      }
+    }
+    return members;
+  }
+
+  /**
+   * Gets the current entries for the given page and all its descendants, one level at a time.  The pages of each
+   * level that are not already current are captured together, up to {@link #parallelCaptures} at a time.
+   *
+   * <p>Captures are performed by {@link CapturePage#capturePages(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, java.util.Set, com.semanticcms.core.servlet.CaptureLevel)},
+   * which uses concurrent subrequests when enabled for the request.  Sibling pages are independent, so the
+   * results of each batch are merged on the request thread once the batch completes.</p>
+   */
+  private List<PageEntry> getMembersParallel(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      long now
+  ) throws ServletException, IOException {
+    List<PageEntry> members = new ArrayList<>();
+    Set<PageRef> visited = new HashSet<>();
+    PageEntry rootEntry = getPageEntry(request, response, page, now);
+    members.add(rootEntry);
+    visited.add(rootEntry.pageRef);
+    List<PageRef> level = new ArrayList<>(rootEntry.childRefs);
+    while (!level.isEmpty()) {
+      List<PageRef> nextLevel = new ArrayList<>();
+      List<PageRef> uncaptured = new ArrayList<>();
+      for (PageRef pageRef : level) {
+        if (visited.add(pageRef)) {
+          PageEntry entry = pages.get(pageRef);
+          if (entry != null && isCurrent(entry, now)) {
+            members.add(entry);
+            nextLevel.addAll(entry.childRefs);
+          } else {
+            uncaptured.add(pageRef);
+          }
+        }
+      }
+      for (int start = 0, size = uncaptured.size(); start < size; start += parallelCaptures) {
+        List<PageRef> batch = uncaptured.subList(start, Math.min(start + parallelCaptures, size));
+        // Get the last modified before capture, so any modification during capture will be detected later
+        Map<PageRef, Long> lastModifieds = new HashMap<>(batch.size() * 4 / 3 + 1);
+        for (PageRef pageRef : batch) {
+          lastModifieds.put(pageRef, getLastModified(pageRef, now));
+        }
+        Map<PageRef, Page> captured = capturePages(request, response, batch);
+        for (PageRef pageRef : batch) {
+          Page capturedPage = captured.get(pageRef);
+          if (capturedPage == null) {
+            throw new ServletException("Page not captured: " + pageRef);
+          }
+          PageEntry entry = new PageEntry(
+              pageRef,
+              lastModifieds.get(pageRef),
+              capturedPage,
+              findAllowRobots(request, response, capturedPage),
+              Dependencies.of(servletContext, pageRef, capturedPage),
+              now
+          );
+          putPageEntry(entry);
+          metrics.recordPageCaptured(pageRef, capturedPage.getElements().size());
+          members.add(entry);
+          nextLevel.addAll(entry.childRefs);
+        }
+      }
+      level = nextLevel;
+    }
+    return members;
+  }
+
+  /**
+   * Gets the current subtree for the given page, building it when not cached or no longer current.
+   */
+  private SubtreeEntry getSubtree(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      long now
+  ) throws ServletException, IOException {
+    final PageRef rootRef = page.getPageRef();
+    final long startNanos = System.nanoTime();
+    SubtreeEntry subtree = getCurrentSubtree(rootRef, now);
+    if (subtree == null && awaitWarmer(rootRef)) {
+      subtree = getCurrentSubtree(rootRef, now);
+    }
+    if (subtree == null) {
+      subtree = subtreeFlights.execute(rootRef, () -> {
+        if (parallelCaptures > 1) {
+          // Capture the pages not already current together, so the subtrees are then built from the index
+          getMembersParallel(request, response, page, now);
+        }
+        SubtreeEntry built = new SubtreeBuilder(request, response, now).build(rootRef, page);
+        final long mergeNanos = System.nanoTime();
+        built.getNews();
+        final long endNanos = System.nanoTime();
+        metrics.recordTraversal(false, built.members.size(), mergeNanos - startNanos, endNanos - mergeNanos);
+        return built;
+      });
+    } else {
+      metrics.recordTraversal(true, subtree.members.size(), System.nanoTime() - startNanos, 0);
+    }
+    return subtree;
+  }
+
+  /**
+   * Builds subtrees from the subtrees of their children, reusing each child subtree that is still current.
+   *
+   * <p>A page may be reached more than once, either through more than one parent or through a cycle.  A child
+   * already being built above is skipped, since its news is included by that ancestor, but the subtrees between
+   * them are then incomplete and are not cached.</p>
+   *
+   * <p>When using only the pages already indexed, a page not indexed leaves its ancestors unbuilt, but the
+   * subtrees of its siblings and theirs are still built and cached.</p>
+   */
+  private final class SubtreeBuilder {
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final long now;
+
+    /**
+     * The page entries already checked by this build, so shared descendants are checked only once.
+     */
+    private final Set<PageEntry> checked = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * The depth of each page currently being built.
+     */
+    private final Map<PageRef, Integer> building = new HashMap<>();
+
+    /**
+     * The shallowest depth being built that was reached by the last subtree built, or {@link Integer#MAX_VALUE}.
+     */
+    private int reached;
+
+    /**
+     * Creates a builder for a single request.
+     *
+     * @param  request  the request used to capture pages or {@code null} to use only the pages already indexed
+     */
+    private SubtreeBuilder(HttpServletRequest request, HttpServletResponse response, long now) {
+      this.request = request;
+      this.response = response;
+      this.now = now;
+    }
+
+    private boolean isCurrent(SubtreeEntry subtree) {
+      for (PageEntry member : subtree.members) {
+        if (!checked.contains(member)) {
+          if (!NewsIndex.this.isCurrent(member, now)) {
+            return false;
+          }
+          checked.add(member);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Builds the subtree for the given page.
+     *
+     * @param  page  the page when already captured or {@code null} to find it in the index
+     *
+     * @return  the subtree or {@code null} when capturing is disabled and a page is not indexed
+     */
+    private SubtreeEntry build(PageRef pageRef, Page page) throws ServletException, IOException {
+      SubtreeEntry existing = subtrees.get(pageRef);
+      if (existing != null && isCurrent(existing)) {
+        reached = Integer.MAX_VALUE;
+        return existing;
+      }
+      PageEntry entry;
+      if (page != null) {
+        entry = getPageEntry(request, response, page, now);
+      } else if (request != null) {
+        entry = getPageEntry(request, response, pageRef, now);
+      } else {
+        entry = pages.get(pageRef);
+        if (entry == null) {
+          return null;
+        }
+      }
+      checked.add(entry);
+      final int depth = building.size();
+      building.put(pageRef, depth);
+      try {
+        int minReached = Integer.MAX_VALUE;
+        boolean missing = false;
+        List<SubtreeEntry> children = new ArrayList<>(entry.childRefs.size());
+        for (PageRef childRef : entry.childRefs) {
+          Integer childDepth = building.get(childRef);
+          if (childDepth != null) {
+            minReached = Math.min(minReached, childDepth);
+          } else {
+            SubtreeEntry child = build(childRef, null);
+            if (child == null) {
+              // Continue with the siblings, so their subtrees are cached
+              missing = true;
+            } else {
+              minReached = Math.min(minReached, reached);
+              children.add(child);
+            }
+          }
+        }
+        if (missing) {
+          return null;
+        }
+        SubtreeEntry subtree = new SubtreeEntry(entry, Collections.unmodifiableList(children));
+        if (minReached >= depth) {
+          subtrees.put(pageRef, subtree);
+        }
+        reached = minReached;
+        return subtree;
+      } finally {
+        building.remove(pageRef);
+      }
+    }
+  }
+
+  /**
+   * Sets the warmer that request threads wait on before building subtrees themselves.
+   */
+  void setWarmer(NewsIndexWarmer warmer) {
+    this.warmer = warmer;
+  }
+
+  /**
+   * Waits for the warmer, if any, to finish the book of the given page.
+   *
+   * @return  {@code true} when the book has been warmed, or {@code false} when there is no warmer or the wait timed
+   *          out, in which case the request thread falls back to building the subtree itself
+   */
+  private boolean awaitWarmer(PageRef pageRef) {
+    NewsIndexWarmer w = warmer;
+    if (w == null) {
+      return false;
+    }
+    try {
+      return w.await(pageRef.getBookName());
+    } catch (InterruptedException e) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Checks the given page against its source, without capturing.
+   *
+   * @return  the children of the page or {@code null} when the page is not indexed or its source has been modified
+   */
+  Set<PageRef> checkPage(PageRef pageRef, long now) {
+    PageEntry entry = pages.get(pageRef);
+    return (entry != null && isCurrent(entry, now)) ? entry.childRefs : null;
+  }
+
+  /**
+   * Indexes the given page for the warmer, capturing the page when it has no current entry.
+   *
+   * @see  NewsIndexWarmer.CaptureServlet
+   */
+  void warmPage(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      PageRef pageRef
+  ) throws ServletException, IOException {
+    getPageEntry(request, response, pageRef, System.currentTimeMillis());
+  }
+
+  /**
+   * Builds the subtree for the given page from the pages already indexed, without capturing.  The subtree is
+   * checked against the page sources when used, like any other subtree.
+   *
+   * @return  {@code true} when every page in the subtree is indexed and the subtree has been built
+   */
+  boolean buildSubtree(PageRef rootRef) {
+    try {
+      SubtreeEntry subtree = new SubtreeBuilder(null, null, System.currentTimeMillis()).build(rootRef, null);
+      if (subtree == null) {
+        return false;
+      }
+      subtree.getNews();
+      return true;
+    } catch (ServletException | IOException e) {
+      // Nothing is captured without a request
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Gets the version of the given subtree, without capturing any pages.
+   *
+   * @return  the version or {@code null} when the subtree is not cached or is no longer current
+   */
+  Version getVersion(HttpServletRequest request, PageRef rootRef) {
+    SubtreeEntry subtree = getCurrentSubtree(rootRef, getNow(request));
+    return (subtree == null) ? null : subtree.getVersion();
+  }
+
+  /**
+   * Gets all the news items in the given page and below, sorted by news natural order.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  NewsUtils#findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)
+   */
+  List<News> getAllNews(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) throws ServletException, IOException {
+    return getSubtree(request, response, page, getNow(request)).getNews();
+  }
+
+  /**
+   * Gets summaries of all the news items in the given page and below, sorted by news natural order.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  NewsUtils#findAllNewsSummaries(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)
+   */
+  List<NewsSummary> getAllNewsSummaries(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) throws ServletException, IOException {
+    return getSubtree(request, response, page, getNow(request)).getSummaries();
+  }
+
+  /**
+   * Gets the news items in the given page and below published within the given range, sorted by news natural
+   * order.  Only the months overlapping the range are visited.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  from  the inclusive start of the range or {@code null} for no lower bound
+   * @param  to  the exclusive end of the range or {@code null} for no upper bound
+   *
+   * @see  NewsUtils#findNewsBetween(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, java.time.ZonedDateTime, java.time.ZonedDateTime)
+   */
+  List<News> getNewsBetween(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      ZonedDateTime from,
+      ZonedDateTime to
+  ) throws ServletException, IOException {
+    if (from != null && to != null && !from.isBefore(to)) {
+      return Collections.emptyList();
+    }
+    NavigableMap<YearMonth, List<News>> byMonth = getSubtree(request, response, page, getNow(request)).getByMonth();
+    YearMonth fromMonth = (from == null) ? null : getMonth(from);
+    YearMonth toMonth = (to == null) ? null : getMonth(to);
+    if (fromMonth != null) {
+      byMonth = byMonth.tailMap(fromMonth, true);
+    }
+    if (toMonth != null) {
+      byMonth = byMonth.headMap(toMonth, true);
+    }
+    // Each bucket is already sorted, and only the first and last months can be partial
+    List<List<News>> runs = new ArrayList<>(byMonth.size());
+    int size = 0;
+    for (Map.Entry<YearMonth, List<News>> entry : byMonth.entrySet()) {
+      YearMonth month = entry.getKey();
+      List<News> run = entry.getValue();
+      if (month.equals(fromMonth) || month.equals(toMonth)) {
+        List<News> bucket = run;
+        run = new ArrayList<>(bucket.size());
+        for (News n : bucket) {
+          ZonedDateTime pubDate = n.getPubDate();
+          if ((from == null || !pubDate.isBefore(from)) && (to == null || pubDate.isBefore(to))) {
+            run.add(n);
+          }
+        }
+      }
+      if (!run.isEmpty()) {
+        runs.add(run);
+        size += run.size();
+      }
+    }
+    switch (runs.size()) {
+      case 0:
+        return Collections.emptyList();
+      case 1:
+        return Collections.unmodifiableList(runs.get(0));
+      default:
+        return Collections.unmodifiableList(merge(runs, size));
+    }
+  }
+
+  /**
+   * Lazily visits the news items in the given page and below, in no particular order.  Pages are captured only
+   * as the consumer advances, so a consumer that stops early does not capture the rest of the subtree.
+   */
+  private final class NewsSpliterator implements Spliterator<News> {
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final long now;
+    private final Set<PageRef> visited = new HashSet<>();
+    private final Queue<PageRef> queue = new ArrayDeque<>();
+    private Iterator<News> current;
+
+    private NewsSpliterator(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        Page page,
+        long now
+    ) throws ServletException, IOException {
+      this.request = request;
+      this.response = response;
+      this.now = now;
+      PageEntry rootEntry = getPageEntry(request, response, page, now);
+      visited.add(rootEntry.pageRef);
+      queue.addAll(rootEntry.childRefs);
+      current = rootEntry.getNewsLists().news.iterator();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super News> action) {
+      while (!current.hasNext()) {
+        PageRef pageRef = queue.poll();
+        if (pageRef == null) {
+          return false;
+        }
+        if (visited.add(pageRef)) {
+          PageEntry entry;
+          try {
+            entry = getPageEntry(request, response, pageRef, now);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          } catch (ServletException e) {
+            throw new WrappedException(e);
+          }
+          queue.addAll(entry.childRefs);
+          current = entry.getNewsLists().news.iterator();
+        }
+      }
+      action.accept(current.next());
+      return true;
+    }
+
+    @Override
+    public Spliterator<News> trySplit() {
+      return null;
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return NONNULL | DISTINCT;
+    }
+  }
+
+  /**
+   * Streams the news items in the given page and below.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  sorted  when {@code true}, the stream is in news natural order and is backed by the sorted subtree
+   *                 in the index.  When {@code false}, the stream is in no particular order and pages are captured
+   *                 only as the stream is consumed.
+   *
+   * @see  NewsUtils#streamNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, boolean)
+   */
+  Stream<News> streamNews(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      boolean sorted
+  ) throws ServletException, IOException {
+    final long now = getNow(request);
+    if (sorted) {
+      return getSubtree(request, response, page, now).getNews().stream();
+    }
+    // Use the sorted subtree when already available, since it requires no further captures
+    SubtreeEntry subtree = getCurrentSubtree(page.getPageRef(), now);
+    if (subtree != null) {
+      return subtree.getNews().stream();
+    }
+    return StreamSupport.stream(new NewsSpliterator(request, response, page, now), false);
+  }
+
+  /**
+   * Gets the first news items in the given page and below, in news natural order.
+   * When the subtree is already sorted in the index, no pages are visited.  Otherwise, only the first
+   * offset + limit items are retained while visiting the pages, then the subtree is built from the pages now
+   * indexed, so later queries are answered without visiting the pages.  The subtree is sorted only when first used.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  after  when non-null, only items strictly after this position in natural order are selected
+   *
+   * @see  NewsUtils#findNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, int, int)
+   */
+  List<News> getNews(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsCursor after,
+      int offset,
+      int limit
+  ) throws ServletException, IOException {
+    final long now = getNow(request);
+    final long startNanos = System.nanoTime();
+    final News afterNews = (after == null) ? null : after.toNews(servletContext);
+    SubtreeEntry subtree = getCurrentSubtree(page.getPageRef(), now);
+    if (subtree == null && awaitWarmer(page.getPageRef())) {
+      subtree = getCurrentSubtree(page.getPageRef(), now);
+    }
+    if (subtree != null) {
+      metrics.recordTraversal(true, subtree.members.size(), System.nanoTime() - startNanos, 0);
+      return TopNews.fromSorted(subtree.getNews(), afterNews, offset, limit);
+    }
+    return topFlights.execute(Arrays.asList(page.getPageRef(), after, offset, limit), () -> {
+      TopNews top = new TopNews(afterNews, offset, limit);
+      List<PageEntry> members = getMembers(request, response, page, now);
+      for (PageEntry member : members) {
+        top.offerAll(member.getNewsLists().news);
+      }
+      // Selection is performed while visiting, so there is no separate sort
+      metrics.recordTraversal(false, members.size(), System.nanoTime() - startNanos, 0);
+      // Every member is now indexed, build the subtree without capturing so later queries need no traversal
+      new SubtreeBuilder(null, null, now).build(page.getPageRef(), null);
+      return top.toList();
+    });
+  }
+
+  /**
+   * Gets the news items in the given page and below selected by the given query, sorted by news natural order.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  #getNews(jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsQuery, com.semanticcms.news.servlet.TraversalLimits)
+   * @see  NewsUtils#findNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsQuery)
+   */
+  List<News> getNews(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsQuery query
+  ) throws ServletException, IOException {
+    return getNews(request, response, page, query, TraversalLimits.NONE).getNews();
+  }
+
+  /**
+   * Gets the news items in the given page and below selected by the given query, sorted by news natural order,
+   * stopping the traversal at the given limits.
+   *
+   * <p>The query is answered from the subtree of the page, skipping the child subtrees whose synopsis has no news
+   * matching the query.  When limited, only a subtree that is already current is used.  Otherwise, the pages are
+   * traversed one level at a time, and children with a current subtree having no news matching the query are not
+   * visited.  Pages outside the book or path prefix of the query are traversed without selecting their news, since
+   * their children may be within it.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  NewsUtils#findNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsQuery, com.semanticcms.news.servlet.TraversalLimits)
+   */
+  NewsResult getNews(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsQuery query,
+      TraversalLimits limits
+  ) throws ServletException, IOException {
+    if (query.isEmpty()) {
+      return new NewsResult(Collections.emptyList(), null, 0);
+    }
+    final long now = getNow(request);
+    final long startNanos = System.nanoTime();
+    SubtreeEntry subtree;
+    if (limits.isUnbounded()) {
+      subtree = getSubtree(request, response, page, now);
+    } else {
+      subtree = getCurrentSubtree(page.getPageRef(), now);
+      if (subtree != null) {
+        metrics.recordTraversal(true, subtree.members.size(), System.nanoTime() - startNanos, 0);
+      }
+    }
+    if (subtree != null) {
+      if (query.isAll()) {
+        return new NewsResult(subtree.getNews(), null, subtree.members.size());
+      }
+      List<PageEntry> members = new ArrayList<>();
+      collectMembers(
+          subtree,
+          query,
+          Collections.newSetFromMap(new IdentityHashMap<>()),
+          Collections.newSetFromMap(new IdentityHashMap<>()),
+          members
+      );
+      return new NewsResult(select(members, query), null, subtree.members.size());
+    }
+    List<PageEntry> members = new ArrayList<>();
+    NewsResult.Limit stoppedBy = traverse(request, response, page, query, limits.start(startNanos), now, members);
+    final long selectNanos = System.nanoTime();
+    List<News> selected = select(members, query);
+    metrics.recordTraversal(false, members.size(), selectNanos - startNanos, System.nanoTime() - selectNanos);
+    if (stoppedBy != null) {
+      metrics.recordPartialTraversal();
+    }
+    return new NewsResult(selected, stoppedBy, members.size());
+  }
+
+  /**
+   * Selects the news of the given pages matching the given query, sorted by news natural order.
+   *
+   * @param  members  the distinct pages
+   */
+  private static List<News> select(List<PageEntry> members, NewsQuery query) {
+    // Each page is a sorted run, and pages are distinct so the runs share no news
+    List<List<News>> runs = new ArrayList<>();
+    int size = 0;
+    for (PageEntry member : members) {
+      if (query.matchesPage(member.pageRef)) {
+        List<News> run;
+        if (query.isAllNews()) {
+          run = member.getNewsLists().sortedNews;
+        } else {
+          run = new ArrayList<>();
+          List<News> sortedNews = member.getNewsLists().sortedNews;
+          for (int i = 0, len = sortedNews.size(); i < len; i++) {
+            if (query.matchesNews(member.sortedSummaries.get(i))) {
+              run.add(sortedNews.get(i));
+            }
+          }
+        }
+        if (!run.isEmpty()) {
+          runs.add(run);
+          size += run.size();
+        }
+      }
+    }
+    if (runs.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList((runs.size() == 1) ? runs.get(0) : merge(runs, size));
+  }
+
+  /**
+   * Adds the distinct page entries of the given subtree whose news may be selected by the given query, skipping
+   * each child subtree whose synopsis has no news matching the query.
+   */
+  private void collectMembers(
+      SubtreeEntry subtree,
+      NewsQuery query,
+      Set<SubtreeEntry> seen,
+      Set<PageEntry> added,
+      List<PageEntry> members
+  ) {
+    if (seen.add(subtree)) {
+      if (!subtree.getSynopsis().mayMatch(query)) {
+        metrics.recordSubtreePruned();
+      } else {
+        if (added.add(subtree.root)) {
+          members.add(subtree.root);
+        }
+        for (SubtreeEntry child : subtree.children) {
+          collectMembers(child, query, seen, added, members);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the current entries for the given page and its descendants, one level at a time, capturing only those
+   * pages not already current.  A child whose subtree is current and has no news matching the
+   * query is not visited.  The limits are checked before visiting each page below the given page, counting only
+   * the pages captured towards {@link TraversalLimits#maxPages(int)}.
+   *
+   * <p>When any page is captured or the traversal is complete, the subtrees that are now fully indexed are cached,
+   * so later queries use them instead of traversing again, even when this traversal was stopped by a limit.</p>
+   *
+   * @return  the limit that stopped the traversal or {@code null} when every page was visited
+   */
+  private NewsResult.Limit traverse(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsQuery query,
+      TraversalLimits.Check limits,
+      long now,
+      List<PageEntry> members
+  ) throws ServletException, IOException {
+    Set<PageRef> visited = new HashSet<>();
+    PageEntry rootEntry = getPageEntry(request, response, page, now);
+    members.add(rootEntry);
+    visited.add(rootEntry.pageRef);
+    List<PageRef> level = new ArrayList<>();
+    queueChildren(rootEntry, query, now, visited, level);
+    int captured = 0;
+    NewsResult.Limit stoppedBy = null;
+    for (int depth = 1; stoppedBy == null && !level.isEmpty(); depth++) {
+      if (!limits.isWithinDepth(depth)) {
+        stoppedBy = NewsResult.Limit.MAX_DEPTH;
+      } else {
+        List<PageRef> nextLevel = new ArrayList<>();
+        for (PageRef pageRef : level) {
+          PageEntry entry = pages.get(pageRef);
+          boolean current = entry != null && isCurrent(entry, now);
+          stoppedBy = current ? limits.check() : limits.checkCapture(captured);
+          if (stoppedBy != null) {
+            break;
+          }
+          if (!current) {
+            entry = getPageEntry(request, response, pageRef, now);
+            captured++;
+          }
+          members.add(entry);
+          queueChildren(entry, query, now, visited, nextLevel);
+        }
+        level = nextLevel;
+      }
+    }
+    if (captured > 0 || stoppedBy == null) {
+      new SubtreeBuilder(null, null, now).build(rootEntry.pageRef, null);
+    }
+    return stoppedBy;
+  }
+
+  /**
+   * Adds the children of the given page, skipping those already visited and those whose subtree is current and has
+   * no news matching the query.  Children outside the book or path prefix of the query are added, since their own
+   * children may be within it.
+   */
+  private void queueChildren(PageEntry entry, NewsQuery query, long now, Set<PageRef> visited, List<PageRef> queue) {
+    for (PageRef childRef : entry.childRefs) {
+      if (visited.add(childRef)) {
+        if (!query.isAll()) {
+          // Check the synopsis first, so the members of a cached subtree are only checked when it may be skipped
+          SubtreeEntry cached = subtrees.get(childRef);
+          if (
+              cached != null
+                  && !cached.getSynopsis().mayMatch(query)
+                  && getCurrentSubtree(childRef, now) == cached
+          ) {
+            metrics.recordSubtreePruned();
+            continue;
+          }
+        }
+        queue.add(childRef);
+      }
+    }
+  }
+
+  /**
+   * Saves the manifest when pages have been indexed or invalidated since the last save, logging any failure.
+   */
+  void saveManifestIfModified() {
+    if (manifestModified) {
+      try {
+        saveManifest();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to save news manifest", e);
+      }
+    }
+  }
+
+  /**
+   * Saves the manifest of all pages currently indexed, replacing any previous manifest.  This is performed
+   * automatically {@linkplain #MANIFEST_SAVE_INTERVAL_INIT_PARAM periodically}, once the {@link NewsIndexWarmer} is
+   * done, and on shutdown.  Does nothing when the manifest is disabled.
+   */
+  public void saveManifest() throws IOException {
+    if (manifest != null) {
+      // Cleared first, so pages indexed while saving are saved next time
+      manifestModified = false;
+      List<NewsManifest.Record> records = new ArrayList<>();
+      for (PageEntry entry : pages.values()) {
+        if (entry.sourceLastModified != PageSources.UNKNOWN) {
+          records.add(new NewsManifest.Record(
+              entry.pageRef,
+              entry.sourceLastModified,
+              entry.title,
+              entry.allowRobots,
+              entry.childRefs,
+              entry.getNewsLists().news,
+              entry.dependencies.targets,
+              entry.dependencies.includes
+          ));
+        }
+      }
+      synchronized (manifest) {
+        manifest.write(records);
+      }
+    }
+  }
+
+  /**
+   * Invalidates the given page.  Any subtree containing the page will be rebuilt on next use, capturing only
+   * the given page again.
+   */
+  public void invalidate(PageRef pageRef) {
+    pages.remove(pageRef);
+    manifestModified = true;
+    subtrees.remove(pageRef);
+    updateGlobalNewsIndex(pageRef);
+  }
+
+  /**
+   * Invalidates all pages in the given book.  Subtrees in other books containing any of the pages will be rebuilt
+   * on next use.
+   */
+  public void invalidateBook(String book) {
+    for (PageRef pageRef : pages.keySet()) {
+      if (pageRef.getBookName().equals(book)) {
+        invalidate(pageRef);
+      }
+    }
+    subtrees.keySet().removeIf(pageRef -> pageRef.getBookName().equals(book));
+  }
+
+  /**
+   * Checks whether the given page is currently in the index, without capturing or checking the page.
+   */
+  boolean isIndexed(PageRef pageRef) {
+    return pages.containsKey(pageRef);
+  }
+
+  /**
+   * Gets the pages of the given book currently in the index, without capturing or checking any pages.
+   */
+  Set<PageRef> getIndexedPages(String book) {
+    Set<PageRef> pageRefs = new LinkedHashSet<>();
+    for (PageRef pageRef : pages.keySet()) {
+      if (pageRef.getBookName().equals(book)) {
+        pageRefs.add(pageRef);
+      }
+    }
+    return pageRefs;
+  }
+
+  /**
+   * Gets the given page and all its descendants currently in the index, without capturing or checking any pages.
+   */
+  Set<PageRef> getIndexedSubtree(PageRef rootRef) {
+    Set<PageRef> visited = new LinkedHashSet<>();
+    Queue<PageRef> queue = new ArrayDeque<>();
+    queue.add(rootRef);
+    PageRef pageRef;
+    while ((pageRef = queue.poll()) != null) {
+      if (visited.add(pageRef)) {
+        PageEntry entry = pages.get(pageRef);
+        if (entry != null) {
+          queue.addAll(entry.childRefs);
+        }
+      }
+    }
+    return visited;
+  }
+
+  /**
+   * Invalidates all pages.
+   */
+  public void clear() {
+    pages.clear();
+    manifestModified = true;
+    stats.clear();
+    subtrees.clear();
+    globalNewsIndex.clear();
+  }
+}
@@ -0,0 +1,476 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.SemanticCMS;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Optional background job that warms the {@link NewsIndex} on start-up, enabled by the
+ * {@link #THREADS_INIT_PARAM} context init parameter.
+ *
+ * <p>The pages of each book are visited from its content root with the same traversal rules as
+ * {@link NewsUtils#findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}:
+ * children are followed by {@link com.semanticcms.core.model.Page#getChildRefs()}, skipping those in missing books.
+ * The pages of each level are visited concurrently on virtual threads, bounded by {@link #THREADS_INIT_PARAM}, then
+ * the sorted subtree of the book is built.  Platform daemon threads are used on Java versions before 21.</p>
+ *
+ * <p>Pages loaded from the {@linkplain NewsIndex#MANIFEST_DIRECTORY_INIT_PARAM manifest} are only checked against
+ * their sources.  Pages can only be captured within a request, so the other pages are captured by requests to this
+ * application at {@link #URL_INIT_PARAM}, which are served by a servlet registered only while warming and
+ * only for the warmer itself.  Without {@link #URL_INIT_PARAM}, only the books whose pages are all current in the
+ * manifest are warmed, and the other pages are captured by the first request as usual.</p>
+ *
+ * <p>Request threads that find no current subtree in a book being warmed wait up to
+ * {@link #AWAIT_TIMEOUT_INIT_PARAM} for the book to be warmed, then fall back to building the subtree themselves.
+ * Requests for books not being warmed never wait.</p>
+ */
+public final class NewsIndexWarmer {
+
+  /**
+   * The context init parameter that enables warming and sets the maximum number of pages visited concurrently.
+   * Defaults to zero, which disables warming.
+   */
+  public static final String THREADS_INIT_PARAM = NewsIndexWarmer.class.getName() + ".threads";
+
+  /**
+   * The context init parameter that sets the maximum number of milliseconds a request waits for a book to be
+   * warmed.  Defaults to zero, which never waits.
+   */
+  public static final String AWAIT_TIMEOUT_INIT_PARAM = NewsIndexWarmer.class.getName() + ".awaitTimeout";
+
+  /**
+   * The context init parameter that sets the URL this application is reached at from the server itself, such as
+   * {@code http://localhost:8080/context}, used to capture the pages not current in the manifest.  Defaults to none,
+   * which only warms the pages loaded from the manifest.
+   */
+  public static final String URL_INIT_PARAM = NewsIndexWarmer.class.getName() + ".url";
+
+  /**
+   * The servlet path of the pages captured for the warmer.
+   */
+  private static final String CAPTURE_SERVLET_PATH = "/semanticcms-news-warmer";
+
+  /**
+   * The request header with the {@linkplain #token token} of the warmer, without which captures are not found.
+   */
+  private static final String TOKEN_HEADER = "X-SemanticCMS-News-Warmer";
+
+  private static final Logger logger = Logger.getLogger(NewsIndexWarmer.class.getName());
+
+  /**
+   * Starts warming on start-up, when enabled, and stops on shutdown.
+   */
+  @WebListener("Warms the news index in the background on start-up.")
+  public static class Initializer implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+      ServletContext servletContext = event.getServletContext();
+      String param = servletContext.getInitParameter(THREADS_INIT_PARAM);
+      int threads = (param == null || param.isBlank()) ? 0 : Integer.parseInt(param.trim());
+      if (threads > 0) {
+        NewsIndexWarmer warmer = new NewsIndexWarmer(servletContext, threads);
+        if (warmer.url != null) {
+          servletContext.addServlet(CaptureServlet.class.getName(), CaptureServlet.class)
+              .addMapping(CAPTURE_SERVLET_PATH);
+        }
+        APPLICATION_ATTRIBUTE.context(servletContext).set(warmer);
+        warmer.start();
+      }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+      NewsIndexWarmer warmer = APPLICATION_ATTRIBUTE.context(event.getServletContext()).get();
+      if (warmer != null) {
+        warmer.stop();
+      }
+    }
+  }
+
+  /**
+   * Captures and indexes one page for the warmer.  Requests without the token of the running warmer are not found.
+   */
+  public static class CaptureServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+      ServletContext servletContext = getServletContext();
+      NewsIndexWarmer warmer = getInstance(servletContext);
+      String token = request.getHeader(TOKEN_HEADER);
+      Book book = (warmer == null || warmer.state != State.RUNNING || !warmer.token.equals(token)) ? null
+          : SemanticCMS.getInstance(servletContext).getBooks().get(request.getParameter("book"));
+      String path = request.getParameter("path");
+      if (book == null || path == null) {
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+      warmer.newsIndex.warmPage(request, response, new PageRef(book, path));
+      response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+  }
+
+  private static final ScopeEE.Application.Attribute<NewsIndexWarmer> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(NewsIndexWarmer.class.getName());
+
+  /**
+   * Gets the warmer for the given servlet context.
+   *
+   * @return  the warmer or {@code null} when warming is not enabled
+   */
+  public static NewsIndexWarmer getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).get();
+  }
+
+  /**
+   * The state of the warmer.
+   */
+  public enum State {
+    /**
+     * Books are being warmed.
+     */
+    RUNNING,
+
+    /**
+     * All books have been warmed.
+     */
+    DONE,
+
+    /**
+     * Stopped before all books were warmed.
+     */
+    STOPPED
+  }
+
+  /**
+   * Creates virtual threads on Java 21 and newer, otherwise daemon platform threads.
+   */
+  private static ThreadFactory newThreadFactory() {
+    String name = NewsIndexWarmer.class.getName() + "-";
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name, 1L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger threadNum = new AtomicInteger();
+      return r -> {
+        Thread thread = new Thread(r, name + threadNum.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final NewsIndex newsIndex;
+  private final long awaitTimeout;
+  private final String url;
+  private final String token;
+  private final HttpClient httpClient;
+
+  /**
+   * Bounds the number of pages visited concurrently, each on its own thread.
+   */
+  private final Semaphore permits;
+  private final ExecutorService executor;
+  private final Thread coordinator;
+
+  /**
+   * Released once each book has been warmed, or on stop.
+   */
+  private final ConcurrentMap<String, CountDownLatch> bookLatches = new ConcurrentHashMap<>();
+
+  private volatile State state = State.RUNNING;
+  private final AtomicInteger booksTotal = new AtomicInteger();
+  private final AtomicInteger booksWarmed = new AtomicInteger();
+  private final AtomicLong pagesChecked = new AtomicLong();
+  private final AtomicLong pagesCaptured = new AtomicLong();
+  private final AtomicLong pagesStale = new AtomicLong();
+
+  private NewsIndexWarmer(ServletContext servletContext, int threads) {
+    this.servletContext = servletContext;
+    this.newsIndex = NewsIndex.getInstance(servletContext);
+    String param = servletContext.getInitParameter(AWAIT_TIMEOUT_INIT_PARAM);
+    this.awaitTimeout = (param == null || param.isBlank()) ? 0 : Long.parseLong(param.trim());
+    String urlParam = servletContext.getInitParameter(URL_INIT_PARAM);
+    if (urlParam == null || urlParam.isBlank()) {
+      this.url = null;
+      this.token = null;
+      this.httpClient = null;
+    } else {
+      urlParam = urlParam.trim();
+      this.url = urlParam.endsWith("/") ? urlParam.substring(0, urlParam.length() - 1) : urlParam;
+      byte[] bytes = new byte[32];
+      new SecureRandom().nextBytes(bytes);
+      this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+      this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+    this.permits = new Semaphore(threads);
+    // A new thread for each page, reusing a thread only while it is idle
+    this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        newThreadFactory());
+    this.coordinator = new Thread(this::warm, NewsIndexWarmer.class.getName());
+    this.coordinator.setDaemon(true);
+  }
+
+  private void start() {
+    for (Book book : SemanticCMS.getInstance(servletContext).getBooks().values()) {
+      // Without capturing, a book without its content root in the index has nothing to warm
+      if (url != null || newsIndex.isIndexed(book.getContentRoot())) {
+        bookLatches.put(book.getName(), new CountDownLatch(1));
+      }
+    }
+    booksTotal.set(bookLatches.size());
+    newsIndex.setWarmer(this);
+    coordinator.start();
+  }
+
+  private void stop() {
+    state = State.STOPPED;
+    coordinator.interrupt();
+    executor.shutdownNow();
+    newsIndex.setWarmer(null);
+    bookLatches.values().forEach(CountDownLatch::countDown);
+  }
+
+  /**
+   * Warms each book in turn, visiting the pages of each level concurrently.
+   */
+  private void warm() {
+    long startTime = System.currentTimeMillis();
+    try {
+      for (Map.Entry<String, Book> entry : SemanticCMS.getInstance(servletContext).getBooks().entrySet()) {
+        if (state != State.RUNNING) {
+          return;
+        }
+        CountDownLatch latch = bookLatches.get(entry.getKey());
+        if (latch != null) {
+          try {
+            warm(entry.getValue());
+          } finally {
+            booksWarmed.incrementAndGet();
+            latch.countDown();
+          }
+        }
+      }
+      state = State.DONE;
+      if (logger.isLoggable(Level.INFO)) {
+        logger.info(
+            "Warmed news index in " + (System.currentTimeMillis() - startTime) + " ms: " + pagesChecked.get()
+                + " pages checked, " + pagesCaptured.get() + " captured, " + pagesStale.get()
+                + " to be captured on first use"
+        );
+      }
+      // Save the warmed pages now, so a restart before shutdown completes still finds them
+      newsIndex.saveManifestIfModified();
+    } catch (InterruptedException e) {
+      // Stopped
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException | ExecutionException e) {
+      state = State.STOPPED;
+      logger.log(Level.WARNING, "Unable to warm news index", e);
+    } finally {
+      executor.shutdown();
+      bookLatches.values().forEach(CountDownLatch::countDown);
+    }
+  }
+
+  private void warm(Book book) throws InterruptedException, ExecutionException {
+    PageRef contentRoot = book.getContentRoot();
+    final long now = System.currentTimeMillis();
+    Set<PageRef> visited = new HashSet<>();
+    List<PageRef> level = new ArrayList<>();
+    level.add(contentRoot);
+    boolean complete = true;
+    while (!level.isEmpty()) {
+      List<Future<Set<PageRef>>> futures = new ArrayList<>(level.size());
+      for (PageRef pageRef : level) {
+        if (visited.add(pageRef)) {
+          permits.acquire();
+          try {
+            futures.add(executor.submit(() -> {
+              try {
+                return warmPage(pageRef, now);
+              } finally {
+                permits.release();
+              }
+            }));
+          } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+          }
+        }
+      }
+      List<PageRef> nextLevel = new ArrayList<>();
+      for (Future<Set<PageRef>> future : futures) {
+        Set<PageRef> childRefs = future.get();
+        pagesChecked.incrementAndGet();
+        if (childRefs == null) {
+          // Not indexed, its descendants are not known
+          pagesStale.incrementAndGet();
+          complete = false;
+        } else {
+          nextLevel.addAll(childRefs);
+        }
+      }
+      level = nextLevel;
+    }
+    if (complete) {
+      newsIndex.buildSubtree(contentRoot);
+    }
+  }
+
+  /**
+   * Checks the given page against its source, capturing the page when not current and {@link #URL_INIT_PARAM} is
+   * set.
+   *
+   * @return  the children of the page or {@code null} when the page is not indexed
+   */
+  private Set<PageRef> warmPage(PageRef pageRef, long now) throws InterruptedException {
+    Set<PageRef> childRefs = newsIndex.checkPage(pageRef, now);
+    if (childRefs == null && url != null) {
+      HttpRequest request = HttpRequest.newBuilder(URI.create(
+          url + CAPTURE_SERVLET_PATH
+              + "?book=" + URLEncoder.encode(pageRef.getBookName(), StandardCharsets.UTF_8)
+              + "&path=" + URLEncoder.encode(pageRef.getPath(), StandardCharsets.UTF_8)
+      )).header(TOKEN_HEADER, token).build();
+      try {
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == HttpServletResponse.SC_NO_CONTENT) {
+          pagesCaptured.incrementAndGet();
+          childRefs = newsIndex.checkPage(pageRef, System.currentTimeMillis());
+        } else if (logger.isLoggable(Level.WARNING)) {
+          logger.warning("Unable to capture " + pageRef + " for news index: HTTP " + response.statusCode());
+        }
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to capture " + pageRef + " for news index", e);
+      }
+    }
+    return childRefs;
+  }
+
+  /**
+   * Waits for the given book to be warmed, up to {@link #AWAIT_TIMEOUT_INIT_PARAM}.  Returns immediately for a book
+   * not being warmed.
+   *
+   * @return  {@code true} when the book has been warmed or {@code false} when timed out or the book is not warmed
+   */
+  boolean await(String bookName) throws InterruptedException {
+    CountDownLatch latch = bookLatches.get(bookName);
+    if (latch == null) {
+      return false;
+    }
+    if (latch.getCount() == 0) {
+      return true;
+    }
+    return awaitTimeout > 0 && latch.await(awaitTimeout, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Gets the current state.
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Gets the number of books to be warmed, which are all books when {@link #URL_INIT_PARAM} is set, otherwise
+   * those whose content root was loaded from the manifest.
+   */
+  public int getBooksTotal() {
+    return booksTotal.get();
+  }
+
+  /**
+   * Gets the number of books already warmed.
+   */
+  public int getBooksWarmed() {
+    return booksWarmed.get();
+  }
+
+  /**
+   * Gets the number of pages visited.
+   */
+  public long getPagesChecked() {
+    return pagesChecked.get();
+  }
+
+  /**
+   * Gets the number of pages captured by the warmer.
+   */
+  public long getPagesCaptured() {
+    return pagesCaptured.get();
+  }
+
+  /**
+   * Gets the number of pages not indexed by the warmer, which will be captured on first use.
+   */
+  public long getPagesStale() {
+    return pagesStale.get();
+  }
+}
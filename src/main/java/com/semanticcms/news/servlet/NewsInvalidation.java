@@ -0,0 +1,202 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.SemanticCMS;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Application-scoped invalidation of the news caches of this module, through the {@link InvalidationBus} selected
+ * by the {@link #JOURNAL_DIRECTORY_INIT_PARAM} context init parameter.
+ *
+ * <p>Each event is resolved to the pages it affects on this node before being passed to the caches, so each cache
+ * drops only the entries of those pages.  A subtree is resolved from the pages currently in the {@link NewsIndex},
+ * since pages not indexed have nothing cached.  Events for books not served by this node are ignored.</p>
+ */
+public final class NewsInvalidation {
+
+  /**
+   * The context init parameter that sets a directory shared by all nodes, enabling the {@link FileInvalidationBus}.
+   * Defaults to none, which uses a {@link LocalInvalidationBus} that delivers events within this JVM only.
+   */
+  public static final String JOURNAL_DIRECTORY_INIT_PARAM = NewsInvalidation.class.getName() + ".journalDirectory";
+
+  /**
+   * The context init parameter that sets the number of milliseconds between polls of the journal directory.
+   * Defaults to one second.
+   */
+  public static final String POLL_INTERVAL_INIT_PARAM = NewsInvalidation.class.getName() + ".pollInterval";
+
+  /**
+   * The context init parameter that sets the number of milliseconds events are kept in the journal directory.
+   * Defaults to one hour.
+   */
+  public static final String RETENTION_INIT_PARAM = NewsInvalidation.class.getName() + ".retention";
+
+  private static final Logger logger = Logger.getLogger(NewsInvalidation.class.getName());
+
+  /**
+   * Starts receiving events on start-up and stops on shutdown.
+   */
+  @WebListener("Starts and stops the invalidation of news caches between nodes.")
+  public static class Initializer implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+      getInstance(event.getServletContext());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+      ScopeEE.Application.Attribute.Context<NewsInvalidation> context =
+          APPLICATION_ATTRIBUTE.context(event.getServletContext());
+      NewsInvalidation invalidation = context.get();
+      if (invalidation != null) {
+        context.remove();
+        try {
+          invalidation.bus.close();
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to close invalidation bus", e);
+        }
+      }
+    }
+  }
+
+  private static final ScopeEE.Application.Attribute<NewsInvalidation> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(NewsInvalidation.class.getName());
+
+  /**
+   * Gets the invalidation for the given servlet context.
+   */
+  public static NewsInvalidation getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new NewsInvalidation(servletContext));
+  }
+
+  /**
+   * A cache that drops its entries for invalidated pages.
+   */
+  public interface Subscriber {
+
+    /**
+     * Drops the entries of the given pages.
+     */
+    void invalidatePages(Set<PageRef> pageRefs);
+
+    /**
+     * Drops the entries of all pages in the given book.
+     */
+    void invalidateBook(String book);
+  }
+
+  private final ServletContext servletContext;
+  private final InvalidationBus bus;
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  private NewsInvalidation(ServletContext servletContext) {
+    this.servletContext = servletContext;
+    String param = servletContext.getInitParameter(JOURNAL_DIRECTORY_INIT_PARAM);
+    InvalidationBus b = null;
+    if (param != null && !param.isBlank()) {
+      String pollInterval = servletContext.getInitParameter(POLL_INTERVAL_INIT_PARAM);
+      String retention = servletContext.getInitParameter(RETENTION_INIT_PARAM);
+      try {
+        b = new FileInvalidationBus(
+            new File(param.trim()),
+            (pollInterval == null || pollInterval.isBlank()) ? 1000 : Long.parseLong(pollInterval.trim()),
+            (retention == null || retention.isBlank()) ? (60L * 60 * 1000) : Long.parseLong(retention.trim())
+        );
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to use invalidation journal, invalidating within this node only", e);
+      }
+    }
+    this.bus = (b == null) ? new LocalInvalidationBus() : b;
+    this.bus.subscribe(this::dispatch);
+  }
+
+  /**
+   * Gets the bus events are published through.
+   */
+  public InvalidationBus getBus() {
+    return bus;
+  }
+
+  /**
+   * Publishes an event to all nodes, including this one.
+   */
+  public void publish(InvalidationEvent event) throws IOException {
+    bus.publish(event);
+  }
+
+  /**
+   * Adds a cache to be invalidated.
+   */
+  public void subscribe(Subscriber subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Removes a cache.
+   */
+  public void unsubscribe(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  /**
+   * Resolves the pages affected by an event, then passes them to every subscriber.
+   */
+  private void dispatch(InvalidationEvent event) {
+    if (event.getType() == InvalidationEvent.Type.BOOK_RELOADED) {
+      for (Subscriber subscriber : subscribers) {
+        subscriber.invalidateBook(event.getBook());
+      }
+      return;
+    }
+    Book book = SemanticCMS.getInstance(servletContext).getBooks().get(event.getBook());
+    if (book == null) {
+      // Not served by this node
+      return;
+    }
+    PageRef pageRef = new PageRef(book, event.getPath());
+    // Resolved before any subscriber drops its entries
+    Set<PageRef> pageRefs = (event.getType() == InvalidationEvent.Type.PAGE_CHANGED)
+        ? Collections.singleton(pageRef)
+        : NewsIndex.getInstance(servletContext).getIndexedSubtree(pageRef);
+    for (Subscriber subscriber : subscribers) {
+      subscriber.invalidatePages(pageRefs);
+    }
+  }
+}
@@ -0,0 +1,472 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A line-oriented manifest of the pages in the {@link NewsIndex}, one file per book, so a new instance may serve
+ * news without first capturing every page.
+ *
+ * <p>Each page is recorded with the last modified time of its source, its title, whether it allows robots
+ * including the setting inherited from its parent pages and book, its child pages, the fields of its news, and the
+ * last modified times of the pages targeted by its news and of the resources included by its source.  A page is only used while its source and these dependencies have the same last modified times, so stale
+ * pages are captured again as usual.  Fields are separated by tabs, with backslash escapes for tabs, newlines, and
+ * backslashes, and <code>\0</code> for {@code null}:</p>
+ *
+ * <pre>semanticcms-news-manifest	4
+ * P	path	sourceLastModified	title	allowRobots
+ * C	childBook	childPath
+ * N	id	book	targetPage	element	view	title	description	pubDate	allowRobots
+ * T	targetBook	targetPath	lastModified
+ * I	resourcePath	lastModified</pre>
+ *
+ * <p>The book and target page of news are recorded as resolved, so news targeting other pages link to them
+ * without capturing the declaring page.  Manifests of any other version are discarded, and their pages captured
+ * again, rebuilding the manifest on the next save.</p>
+ */
+final class NewsManifest {
+
+  private static final String HEADER = "semanticcms-news-manifest\t4";
+
+  private static final String FILE_EXTENSION = ".news";
+
+  private static final String NULL = "\\0";
+
+  /**
+   * The recorded state of one page.
+   */
+  static final class Record {
+
+    private final PageRef pageRef;
+    private final long sourceLastModified;
+    private final String title;
+    private final boolean allowRobots;
+    private final Collection<PageRef> childRefs;
+    private final List<News> news;
+    private final Map<PageRef, Long> targets;
+    private final Map<String, Long> includes;
+
+    Record(
+        PageRef pageRef,
+        long sourceLastModified,
+        String title,
+        boolean allowRobots,
+        Collection<PageRef> childRefs,
+        List<News> news,
+        Map<PageRef, Long> targets,
+        Map<String, Long> includes
+    ) {
+      this.pageRef = pageRef;
+      this.sourceLastModified = sourceLastModified;
+      this.title = title;
+      this.allowRobots = allowRobots;
+      this.childRefs = childRefs;
+      this.news = news;
+      this.targets = targets;
+      this.includes = includes;
+    }
+
+    PageRef getPageRef() {
+      return pageRef;
+    }
+
+    long getSourceLastModified() {
+      return sourceLastModified;
+    }
+
+    /**
+     * Gets whether the page allows robots, including the setting inherited from its parent pages and book.
+     */
+    boolean isAllowRobots() {
+      return allowRobots;
+    }
+
+    /**
+     * Gets the last modified times of the sources of the pages targeted by the news of this page.
+     */
+    Map<PageRef, Long> getTargets() {
+      return targets;
+    }
+
+    /**
+     * Gets the last modified times of the resources included by the source of this page.
+     */
+    Map<String, Long> getIncludes() {
+      return includes;
+    }
+
+    /**
+     * Creates a frozen page containing only the title, robots setting, child pages, and news of this record.
+     */
+    Page toPage() {
+      Page page = new Page();
+      page.setPageRef(pageRef);
+      page.setTitle(title);
+      page.setAllowRobots(allowRobots);
+      for (PageRef childRef : childRefs) {
+        page.addChildRef(new ChildRef(childRef));
+      }
+      for (News n : news) {
+        page.addElement(n);
+      }
+      page.freeze();
+      return page;
+    }
+  }
+
+  private final File directory;
+
+  NewsManifest(File directory) {
+    this.directory = directory;
+  }
+
+  private static String escape(String value) {
+    if (value == null) {
+      return NULL;
+    }
+    StringBuilder sb = null;
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char ch = value.charAt(i);
+      String replacement;
+      switch (ch) {
+        case '\\':
+          replacement = "\\\\";
+          break;
+        case '\t':
+          replacement = "\\t";
+          break;
+        case '\n':
+          replacement = "\\n";
+          break;
+        case '\r':
+          replacement = "\\r";
+          break;
+        default:
+          replacement = null;
+      }
+      if (replacement != null) {
+        if (sb == null) {
+          sb = new StringBuilder(len + 16).append(value, 0, i);
+        }
+        sb.append(replacement);
+      } else if (sb != null) {
+        sb.append(ch);
+      }
+    }
+    return (sb == null) ? value : sb.toString();
+  }
+
+  private static String unescape(String value) throws IOException {
+    if (NULL.equals(value)) {
+      return null;
+    }
+    if (value.indexOf('\\') == -1) {
+      return value;
+    }
+    StringBuilder sb = new StringBuilder(value.length());
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char ch = value.charAt(i);
+      if (ch == '\\') {
+        if (++i == len) {
+          throw new IOException("Incomplete escape: " + value);
+        }
+        ch = value.charAt(i);
+        switch (ch) {
+          case '\\':
+            sb.append('\\');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          default:
+            throw new IOException("Unexpected escape: " + value);
+        }
+      } else {
+        sb.append(ch);
+      }
+    }
+    return sb.toString();
+  }
+
+  private File getFile(String bookName) {
+    return new File(directory, URLEncoder.encode(bookName, StandardCharsets.UTF_8) + FILE_EXTENSION);
+  }
+
+  private static String getBookName(File file) {
+    String name = file.getName();
+    return URLDecoder.decode(name.substring(0, name.length() - FILE_EXTENSION.length()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the records of all books that are still configured.  A book whose manifest cannot be read is skipped,
+   * and its pages are captured as usual.
+   *
+   * @param  books  the configured books, by name
+   */
+  List<Record> read(Map<String, Book> books) {
+    List<Record> records = new ArrayList<>();
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+    if (files != null) {
+      for (File file : files) {
+        Book book = books.get(getBookName(file));
+        if (book != null) {
+          try {
+            records.addAll(read(file, book, books));
+          } catch (IOException | DateTimeException | NumberFormatException e) {
+            // Discard the manifest, pages are captured as usual
+          }
+        }
+      }
+    }
+    return records;
+  }
+
+  private static List<Record> read(File file, Book book, Map<String, Book> books) throws IOException {
+    List<Record> records = new ArrayList<>();
+    try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      if (!HEADER.equals(in.readLine())) {
+        throw new IOException("Unexpected manifest header: " + file);
+      }
+      PageRef pageRef = null;
+      long sourceLastModified = 0;
+      String title = null;
+      boolean allowRobots = false;
+      List<PageRef> childRefs = null;
+      List<News> news = null;
+      Map<PageRef, Long> targets = null;
+      Map<String, Long> includes = null;
+      // Any child or target in a missing book causes the page to be captured again
+      boolean valid = false;
+      String line;
+      while ((line = in.readLine()) != null) {
+        String[] fields = line.split("\t", -1);
+        switch (fields[0]) {
+          case "P":
+            if (pageRef != null && valid) {
+              records.add(new Record(pageRef, sourceLastModified, title, allowRobots, childRefs, news, targets, includes));
+            }
+            pageRef = new PageRef(book, unescape(fields[1]));
+            sourceLastModified = Long.parseLong(fields[2]);
+            title = unescape(fields[3]);
+            allowRobots = Boolean.parseBoolean(fields[4]);
+            childRefs = new ArrayList<>();
+            news = new ArrayList<>();
+            targets = new HashMap<>();
+            includes = new HashMap<>();
+            valid = true;
+            break;
+          case "C": {
+            if (pageRef == null) {
+              throw new IOException("Child before page: " + file);
+            }
+            Book childBook = books.get(unescape(fields[1]));
+            if (childBook == null) {
+              valid = false;
+            } else {
+              childRefs.add(new PageRef(childBook, unescape(fields[2])));
+            }
+            break;
+          }
+          case "N": {
+            if (pageRef == null) {
+              throw new IOException("News before page: " + file);
+            }
+            News n = new News();
+            n.setId(unescape(fields[1]));
+            n.setBook(unescape(fields[2]));
+            n.setTargetPage(unescape(fields[3]));
+            n.setElement(unescape(fields[4]));
+            n.setView(unescape(fields[5]));
+            n.setTitle(unescape(fields[6]));
+            n.setDescription(unescape(fields[7]));
+            String pubDate = unescape(fields[8]);
+            n.setPubDate(pubDate == null ? null : ZonedDateTime.parse(pubDate));
+            String allowRobots = unescape(fields[9]);
+            n.setAllowRobots(allowRobots == null ? null : Boolean.valueOf(allowRobots));
+            news.add(n);
+            break;
+          }
+          case "T": {
+            if (pageRef == null) {
+              throw new IOException("Target before page: " + file);
+            }
+            Book targetBook = books.get(unescape(fields[1]));
+            if (targetBook == null) {
+              valid = false;
+            } else {
+              targets.put(new PageRef(targetBook, unescape(fields[2])), Long.parseLong(fields[3]));
+            }
+            break;
+          }
+          case "I":
+            if (pageRef == null) {
+              throw new IOException("Include before page: " + file);
+            }
+            includes.put(unescape(fields[1]), Long.parseLong(fields[2]));
+            break;
+          default:
+            throw new IOException("Unexpected manifest line: " + file);
+        }
+      }
+      if (pageRef != null && valid) {
+        records.add(new Record(pageRef, sourceLastModified, title, allowRobots, childRefs, news, targets, includes));
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Truncated manifest line: " + file, e);
+    }
+    return records;
+  }
+
+  /**
+   * Writes the given records, replacing all manifests.  Each manifest is written to a temporary file then moved
+   * into place, so a partially written manifest is never read and a failed write leaves the previous manifest.
+   * The manifests of books without records, such as after {@link NewsIndex#clear()}, are removed once the others
+   * are in place.
+   */
+  void write(Collection<Record> records) throws IOException {
+    Map<String, List<Record>> byBook = new LinkedHashMap<>();
+    for (Record r : records) {
+      byBook.computeIfAbsent(r.pageRef.getBookName(), k -> new ArrayList<>()).add(r);
+    }
+    if (!directory.isDirectory()) {
+      Files.createDirectories(directory.toPath());
+    }
+    for (Map.Entry<String, List<Record>> entry : byBook.entrySet()) {
+      File file = getFile(entry.getKey());
+      File tempFile = File.createTempFile("manifest-", ".tmp", directory);
+      try {
+        try (BufferedWriter out = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+          out.write(HEADER);
+          out.write('\n');
+          for (Record r : entry.getValue()) {
+            out.write("P\t");
+            out.write(escape(r.pageRef.getPath()));
+            out.write('\t');
+            out.write(Long.toString(r.sourceLastModified));
+            out.write('\t');
+            out.write(escape(r.title));
+            out.write('\t');
+            out.write(Boolean.toString(r.allowRobots));
+            out.write('\n');
+            for (PageRef childRef : r.childRefs) {
+              out.write("C\t");
+              out.write(escape(childRef.getBookName()));
+              out.write('\t');
+              out.write(escape(childRef.getPath()));
+              out.write('\n');
+            }
+            for (News n : r.news) {
+              ZonedDateTime pubDate = n.getPubDate();
+              out.write("N\t");
+              out.write(escape(n.getId()));
+              out.write('\t');
+              out.write(escape(n.getBook()));
+              out.write('\t');
+              out.write(escape(n.getTargetPage()));
+              out.write('\t');
+              out.write(escape(n.getElement()));
+              out.write('\t');
+              out.write(escape(n.getView()));
+              out.write('\t');
+              out.write(escape(n.getTitle()));
+              out.write('\t');
+              out.write(escape(n.getDescription()));
+              out.write('\t');
+              out.write(escape(pubDate == null ? null : pubDate.toString()));
+              out.write('\t');
+              Boolean allowRobots = n.getAllowRobots();
+              out.write(escape(allowRobots == null ? null : allowRobots.toString()));
+              out.write('\n');
+            }
+            for (Map.Entry<PageRef, Long> target : r.targets.entrySet()) {
+              out.write("T\t");
+              out.write(escape(target.getKey().getBookName()));
+              out.write('\t');
+              out.write(escape(target.getKey().getPath()));
+              out.write('\t');
+              out.write(Long.toString(target.getValue()));
+              out.write('\n');
+            }
+            for (Map.Entry<String, Long> include : r.includes.entrySet()) {
+              out.write("I\t");
+              out.write(escape(include.getKey()));
+              out.write('\t');
+              out.write(Long.toString(include.getValue()));
+              out.write('\n');
+            }
+          }
+        }
+        try {
+          Files.move(
+              tempFile.toPath(),
+              file.toPath(),
+              StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE
+          );
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tempFile.toPath());
+      }
+    }
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+    if (files != null) {
+      for (File file : files) {
+        if (!byBook.containsKey(getBookName(file))) {
+          Files.deleteIfExists(file.toPath());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,451 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Application-scoped counters and histograms of the news traversals and news target resolution, registered with
+ * the platform MBean server as {@code com.semanticcms.news.servlet:type=NewsMetrics,context=<context>}.
+ *
+ * <p>Recording only increments {@link LongAdder} cells, so it adds no contention on the request threads.  The cells
+ * of each book and page are created on first use.  Counters are not reset on read, so rates are found by sampling
+ * the counters over time.</p>
+ */
+public final class NewsMetrics implements NewsMetricsMXBean {
+
+  private static final Logger logger = Logger.getLogger(NewsMetrics.class.getName());
+
+  /**
+   * Registers the metrics of each web application on start-up and unregisters them on shutdown.
+   */
+  @WebListener("Registers the news metrics MBean for each web application.")
+  public static class Initializer implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+      getInstance(event.getServletContext());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+      ScopeEE.Application.Attribute.Context<NewsMetrics> context =
+          APPLICATION_ATTRIBUTE.context(event.getServletContext());
+      NewsMetrics metrics = context.get();
+      if (metrics != null) {
+        context.remove();
+        metrics.unregister();
+      }
+    }
+  }
+
+  private static final ScopeEE.Application.Attribute<NewsMetrics> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(NewsMetrics.class.getName());
+
+  /**
+   * Gets the metrics for the given servlet context, registering them on first use.
+   */
+  public static NewsMetrics getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new NewsMetrics(servletContext));
+  }
+
+  /**
+   * A histogram of counts by power of two.
+   */
+  private static final class Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+
+    private Histogram() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    private void record(long value) {
+      buckets[value <= 0 ? 0 : (Long.SIZE - Long.numberOfLeadingZeros(value))].increment();
+    }
+
+    /**
+     * Gets the counts, trimmed after the last non-zero bucket.
+     */
+    private long[] get() {
+      long[] counts = new long[buckets.length];
+      int length = 0;
+      for (int i = 0; i < counts.length; i++) {
+        long count = buckets[i].sum();
+        counts[i] = count;
+        if (count != 0) {
+          length = i + 1;
+        }
+      }
+      long[] trimmed = new long[length];
+      System.arraycopy(counts, 0, trimmed, 0, length);
+      return trimmed;
+    }
+
+    private void reset() {
+      for (LongAdder bucket : buckets) {
+        bucket.reset();
+      }
+    }
+  }
+
+  /**
+   * The number of pages returned by {@link #getMostCapturedPages()}.
+   */
+  private static final int MOST_CAPTURED_PAGES = 10;
+
+  private final ObjectName objectName;
+
+  private final LongAdder traversals = new LongAdder();
+  private final LongAdder subtreeHits = new LongAdder();
+  private final LongAdder coalescedTraversals = new LongAdder();
+  private final LongAdder subtreesPruned = new LongAdder();
+  private final LongAdder partialTraversals = new LongAdder();
+  private final LongAdder pagesVisited = new LongAdder();
+  private final LongAdder pagesCaptured = new LongAdder();
+  private final LongAdder elementsScanned = new LongAdder();
+  private final LongAdder traversalTimeNanos = new LongAdder();
+  private final LongAdder sortTimeNanos = new LongAdder();
+  private final Histogram pagesVisitedHistogram = new Histogram();
+  private final Histogram traversalTimeHistogram = new Histogram();
+  private final Histogram sortTimeHistogram = new Histogram();
+  private final ConcurrentMap<String, LongAdder> pagesCapturedByBook = new ConcurrentHashMap<>();
+  private final ConcurrentMap<PageRef, LongAdder> capturesByPage = new ConcurrentHashMap<>();
+
+  private final LongAdder targetsResolved = new LongAdder();
+  private final LongAdder targetCacheHits = new LongAdder();
+  private final LongAdder missingBookHits = new LongAdder();
+  private final LongAdder targetCapturesMeta = new LongAdder();
+  private final LongAdder targetCapturesPage = new LongAdder();
+  private final LongAdder targetCaptureTimeNanos = new LongAdder();
+  private final Histogram targetCaptureTimeHistogram = new Histogram();
+  private final ConcurrentMap<String, LongAdder> targetCapturesByBook = new ConcurrentHashMap<>();
+
+  private NewsMetrics(ServletContext servletContext) {
+    ObjectName name;
+    try {
+      String contextPath = servletContext.getContextPath();
+      name = new ObjectName(
+          "com.semanticcms.news.servlet:type=NewsMetrics,context="
+              + ObjectName.quote(servletContext.getVirtualServerName() + (contextPath.isEmpty() ? "/" : contextPath))
+      );
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, name);
+    } catch (JMException | SecurityException e) {
+      // Metrics are still recorded, but not available through JMX
+      logger.log(Level.WARNING, "Unable to register news metrics", e);
+      name = null;
+    }
+    this.objectName = name;
+  }
+
+  private void unregister() {
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException | SecurityException e) {
+        logger.log(Level.WARNING, "Unable to unregister news metrics", e);
+      }
+    }
+  }
+
+  /**
+   * Records a traversal of a page and its descendants.
+   *
+   * @param  subtreeHit  {@code true} when answered by a subtree already current in the index
+   * @param  visited  the number of pages visited
+   * @param  traversalNanos  the time spent visiting pages, including captures
+   * @param  sortNanos  the time spent sorting news
+   */
+  void recordTraversal(boolean subtreeHit, int visited, long traversalNanos, long sortNanos) {
+    traversals.increment();
+    if (subtreeHit) {
+      subtreeHits.increment();
+    }
+    pagesVisited.add(visited);
+    traversalTimeNanos.add(traversalNanos);
+    sortTimeNanos.add(sortNanos);
+    pagesVisitedHistogram.record(visited);
+    traversalTimeHistogram.record(traversalNanos);
+    sortTimeHistogram.record(sortNanos);
+  }
+
+  /**
+   * Records a traversal answered by a concurrent traversal of the same query in another thread.
+   */
+  void recordCoalescedTraversal() {
+    coalescedTraversals.increment();
+  }
+
+  /**
+   * Records a subtree skipped by a query, since it has no news matching the query.
+   */
+  void recordSubtreePruned() {
+    subtreesPruned.increment();
+  }
+
+  /**
+   * Records a traversal stopped by its {@link TraversalLimits}, answered with partial results.
+   */
+  void recordPartialTraversal() {
+    partialTraversals.increment();
+  }
+
+  /**
+   * Records a page captured by a traversal, along with the number of page elements scanned for news.
+   */
+  void recordPageCaptured(PageRef pageRef, int elements) {
+    pagesCaptured.increment();
+    elementsScanned.add(elements);
+    pagesCapturedByBook.computeIfAbsent(pageRef.getBookName(), k -> new LongAdder()).increment();
+    capturesByPage.computeIfAbsent(pageRef, k -> new LongAdder()).increment();
+  }
+
+  /**
+   * Records a news target resolved from the target cache.  For use by the news implementation only.
+   */
+  public void recordTargetCacheHit() {
+    targetsResolved.increment();
+    targetCacheHits.increment();
+  }
+
+  /**
+   * Records a news target in a missing book.  For use by the news implementation only.
+   */
+  public void recordMissingBook() {
+    targetsResolved.increment();
+    missingBookHits.increment();
+  }
+
+  /**
+   * Records a target page captured for a news element.  For use by the news implementation only.
+   *
+   * @param  targetPageRef  the target page
+   * @param  level  the level the target page was captured at
+   * @param  nanos  the time spent capturing the target page
+   */
+  public void recordTargetCapture(PageRef targetPageRef, CaptureLevel level, long nanos) {
+    targetsResolved.increment();
+    targetCapturesByBook.computeIfAbsent(targetPageRef.getBookName(), k -> new LongAdder()).increment();
+    if (level == CaptureLevel.META) {
+      targetCapturesMeta.increment();
+    } else {
+      targetCapturesPage.increment();
+    }
+    targetCaptureTimeNanos.add(nanos);
+    targetCaptureTimeHistogram.record(nanos);
+  }
+
+  @Override
+  public long getTraversals() {
+    return traversals.sum();
+  }
+
+  @Override
+  public long getSubtreeHits() {
+    return subtreeHits.sum();
+  }
+
+  @Override
+  public long getCoalescedTraversals() {
+    return coalescedTraversals.sum();
+  }
+
+  @Override
+  public long getSubtreesPruned() {
+    return subtreesPruned.sum();
+  }
+
+  @Override
+  public long getPartialTraversals() {
+    return partialTraversals.sum();
+  }
+
+  @Override
+  public long getPagesVisited() {
+    return pagesVisited.sum();
+  }
+
+  @Override
+  public long getPagesCaptured() {
+    return pagesCaptured.sum();
+  }
+
+  /**
+   * Sums the counters of each book, sorted by book name.
+   */
+  private static Map<String, Long> sum(ConcurrentMap<String, LongAdder> byBook) {
+    Map<String, Long> sums = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> entry : byBook.entrySet()) {
+      sums.put(entry.getKey(), entry.getValue().sum());
+    }
+    return sums;
+  }
+
+  @Override
+  public Map<String, Long> getPagesCapturedByBook() {
+    return sum(pagesCapturedByBook);
+  }
+
+  @Override
+  public List<PageCaptures> getMostCapturedPages() {
+    Comparator<PageCaptures> byCaptures = Comparator.comparingLong(PageCaptures::getCaptures);
+    PriorityQueue<PageCaptures> most = new PriorityQueue<>(MOST_CAPTURED_PAGES + 1, byCaptures);
+    for (Map.Entry<PageRef, LongAdder> entry : capturesByPage.entrySet()) {
+      long captures = entry.getValue().sum();
+      // Pages captured only once have not been captured again
+      if (captures > 1 && (most.size() < MOST_CAPTURED_PAGES || captures > most.peek().getCaptures())) {
+        PageRef pageRef = entry.getKey();
+        most.add(new PageCaptures(pageRef.getBookName(), pageRef.getPath(), captures));
+        if (most.size() > MOST_CAPTURED_PAGES) {
+          most.poll();
+        }
+      }
+    }
+    List<PageCaptures> sorted = new ArrayList<>(most);
+    sorted.sort(Collections.reverseOrder(byCaptures));
+    return sorted;
+  }
+
+  @Override
+  public long getElementsScanned() {
+    return elementsScanned.sum();
+  }
+
+  @Override
+  public long getTraversalTimeNanos() {
+    return traversalTimeNanos.sum();
+  }
+
+  @Override
+  public long getSortTimeNanos() {
+    return sortTimeNanos.sum();
+  }
+
+  @Override
+  public long[] getPagesVisitedHistogram() {
+    return pagesVisitedHistogram.get();
+  }
+
+  @Override
+  public long[] getTraversalTimeHistogram() {
+    return traversalTimeHistogram.get();
+  }
+
+  @Override
+  public long[] getSortTimeHistogram() {
+    return sortTimeHistogram.get();
+  }
+
+  @Override
+  public long getTargetsResolved() {
+    return targetsResolved.sum();
+  }
+
+  @Override
+  public long getTargetCacheHits() {
+    return targetCacheHits.sum();
+  }
+
+  @Override
+  public long getMissingBookHits() {
+    return missingBookHits.sum();
+  }
+
+  @Override
+  public long getTargetCapturesMeta() {
+    return targetCapturesMeta.sum();
+  }
+
+  @Override
+  public long getTargetCapturesPage() {
+    return targetCapturesPage.sum();
+  }
+
+  @Override
+  public Map<String, Long> getTargetCapturesByBook() {
+    return sum(targetCapturesByBook);
+  }
+
+  @Override
+  public long getTargetCaptureTimeNanos() {
+    return targetCaptureTimeNanos.sum();
+  }
+
+  @Override
+  public long[] getTargetCaptureTimeHistogram() {
+    return targetCaptureTimeHistogram.get();
+  }
+
+  @Override
+  public void reset() {
+    traversals.reset();
+    subtreeHits.reset();
+    coalescedTraversals.reset();
+    subtreesPruned.reset();
+    partialTraversals.reset();
+    pagesVisited.reset();
+    pagesCaptured.reset();
+    elementsScanned.reset();
+    pagesCapturedByBook.clear();
+    capturesByPage.clear();
+    traversalTimeNanos.reset();
+    sortTimeNanos.reset();
+    pagesVisitedHistogram.reset();
+    traversalTimeHistogram.reset();
+    sortTimeHistogram.reset();
+    targetsResolved.reset();
+    targetCacheHits.reset();
+    missingBookHits.reset();
+    targetCapturesMeta.reset();
+    targetCapturesPage.reset();
+    targetCapturesByBook.clear();
+    targetCaptureTimeNanos.reset();
+    targetCaptureTimeHistogram.reset();
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import java.util.List;
+import java.util.Map;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Management interface for the {@link NewsMetrics} of a web application.
+ *
+ * <p>Each histogram is an array of counts by power of two: element zero counts values of zero, and element
+ * <code>i</code> counts values from <code>2<sup>i-1</sup></code> to <code>2<sup>i</sup> - 1</code>.  Times are in
+ * nanoseconds.  Counts by book are mapped to {@link javax.management.openmbean.TabularData} keyed by book name, and
+ * {@link PageCaptures} to {@link javax.management.openmbean.CompositeData}.</p>
+ */
+public interface NewsMetricsMXBean {
+
+  /**
+   * The number of times a page has been captured by traversals.
+   */
+  final class PageCaptures {
+
+    private final String book;
+    private final String path;
+    private final long captures;
+
+    public PageCaptures(String book, String path, long captures) {
+      this.book = book;
+      this.path = path;
+      this.captures = captures;
+    }
+
+    /**
+     * Reconstructs from the open data mapped by the MXBean framework.
+     */
+    public static PageCaptures from(CompositeData data) {
+      return new PageCaptures((String) data.get("book"), (String) data.get("path"), (Long) data.get("captures"));
+    }
+
+    /**
+     * Gets the name of the book of the page.
+     */
+    public String getBook() {
+      return book;
+    }
+
+    /**
+     * Gets the path of the page within its book.
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * Gets the number of times the page has been captured.
+     */
+    public long getCaptures() {
+      return captures;
+    }
+  }
+
+  /**
+   * Gets the number of news traversals, which includes each call to
+   * {@link NewsUtils#findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}.
+   */
+  long getTraversals();
+
+  /**
+   * Gets the number of traversals answered by a subtree already current in the {@link NewsIndex}.
+   */
+  long getSubtreeHits();
+
+  /**
+   * Gets the number of traversals answered by a concurrent traversal of the same query in another thread.  These are
+   * not counted in {@link #getTraversals()}.
+   */
+  long getCoalescedTraversals();
+
+  /**
+   * Gets the number of subtrees skipped by queries, since they have no news matching the query.
+   *
+   * @see  NewsQuery
+   */
+  long getSubtreesPruned();
+
+  /**
+   * Gets the number of traversals stopped by their {@link TraversalLimits}, which were answered with partial results.
+   */
+  long getPartialTraversals();
+
+  /**
+   * Gets the total number of pages visited by traversals, whether captured or already current in the index.
+   */
+  long getPagesVisited();
+
+  /**
+   * Gets the number of pages captured by traversals, including those captured by streams.
+   */
+  long getPagesCaptured();
+
+  /**
+   * Gets the number of pages captured by traversals in each book.
+   */
+  Map<String, Long> getPagesCapturedByBook();
+
+  /**
+   * Gets the pages captured most often by traversals, most captured first.  Only pages captured more than once are
+   * included, since each capture after the first means the page was invalidated or its source changed.
+   */
+  List<PageCaptures> getMostCapturedPages();
+
+  /**
+   * Gets the number of page elements scanned for news.
+   */
+  long getElementsScanned();
+
+  /**
+   * Gets the total time spent in traversals, including captures.
+   */
+  long getTraversalTimeNanos();
+
+  /**
+   * Gets the total time spent sorting news found by traversals.
+   */
+  long getSortTimeNanos();
+
+  /**
+   * Gets the histogram of the number of pages visited per traversal.
+   */
+  long[] getPagesVisitedHistogram();
+
+  /**
+   * Gets the histogram of the time spent per traversal, including captures.
+   */
+  long[] getTraversalTimeHistogram();
+
+  /**
+   * Gets the histogram of the time spent sorting per traversal.
+   */
+  long[] getSortTimeHistogram();
+
+  /**
+   * Gets the number of news targets resolved, whether from cache or by capture.
+   */
+  long getTargetsResolved();
+
+  /**
+   * Gets the number of news targets resolved from the target cache.
+   */
+  long getTargetCacheHits();
+
+  /**
+   * Gets the number of news targets in missing books.
+   */
+  long getMissingBookHits();
+
+  /**
+   * Gets the number of target pages captured at {@link com.semanticcms.core.servlet.CaptureLevel#META}.
+   */
+  long getTargetCapturesMeta();
+
+  /**
+   * Gets the number of target pages captured at {@link com.semanticcms.core.servlet.CaptureLevel#PAGE}.
+   */
+  long getTargetCapturesPage();
+
+  /**
+   * Gets the number of target pages captured in each book, at either level.
+   */
+  Map<String, Long> getTargetCapturesByBook();
+
+  /**
+   * Gets the total time spent capturing target pages.
+   */
+  long getTargetCaptureTimeNanos();
+
+  /**
+   * Gets the histogram of the time spent per target page capture.
+   */
+  long[] getTargetCaptureTimeHistogram();
+
+  /**
+   * Resets all counters and histograms to zero.
+   */
+  void reset();
+}
@@ -0,0 +1,256 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.PageUtils;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * An immutable selection of news, pushed into the traversal of the pages by
+ * {@link NewsUtils#findNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsQuery)}.
+ * Each method returns a new query with one more filter, starting from {@link #ALL}:
+ *
+ * <pre>NewsQuery.ALL.book("/blog").pathPrefix("/2026/").allowRobots(true)</pre>
+ *
+ * <p>The {@linkplain #book(java.lang.String) book} and {@linkplain #pathPrefix(java.lang.String) path prefix}
+ * select the pages the news is declared in.  Pages outside this scope are still traversed, without selecting
+ * their news, since they may have children within it.  The remaining filters select the news items themselves.</p>
+ *
+ * <p>Subtrees already current in the {@link NewsIndex} that have no news declared in the book, under the path
+ * prefix, and matching the remaining filters are skipped without being visited.</p>
+ */
+public final class NewsQuery {
+
+  /**
+   * The query that selects all news.
+   */
+  public static final NewsQuery ALL = new NewsQuery(null, null, null, null, null, null);
+
+  private final String book;
+  private final String pathPrefix;
+  private final String view;
+  private final Boolean allowRobots;
+  private final ZonedDateTime from;
+  private final ZonedDateTime to;
+
+  private NewsQuery(
+      String book,
+      String pathPrefix,
+      String view,
+      Boolean allowRobots,
+      ZonedDateTime from,
+      ZonedDateTime to
+  ) {
+    this.book = book;
+    this.pathPrefix = pathPrefix;
+    this.view = view;
+    this.allowRobots = allowRobots;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  public String toString() {
+    return "NewsQuery(book=" + book + ", pathPrefix=" + pathPrefix + ", view=" + view + ", allowRobots="
+        + allowRobots + ", from=" + from + ", to=" + to + ')';
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof NewsQuery)) {
+      return false;
+    }
+    NewsQuery other = (NewsQuery) obj;
+    return Objects.equals(book, other.book)
+        && Objects.equals(pathPrefix, other.pathPrefix)
+        && Objects.equals(view, other.view)
+        && Objects.equals(allowRobots, other.allowRobots)
+        && Objects.equals(from, other.from)
+        && Objects.equals(to, other.to);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(book, pathPrefix, view, allowRobots, from, to);
+  }
+
+  /**
+   * Selects only the news declared in pages of the given book.
+   *
+   * @param  book  the book name or {@code null} for any book
+   *
+   * @return  a new query
+   */
+  public NewsQuery book(String book) {
+    return new NewsQuery(book, pathPrefix, view, allowRobots, from, to);
+  }
+
+  /**
+   * Selects only the news declared in pages whose path starts with the given prefix, such as {@code "/blog/"}.
+   *
+   * @param  pathPrefix  the path prefix, starting with a slash, or {@code null} for any path
+   *
+   * @return  a new query
+   */
+  public NewsQuery pathPrefix(String pathPrefix) {
+    if (pathPrefix != null && !pathPrefix.startsWith("/")) {
+      throw new IllegalArgumentException("Path prefix must start with a slash (/): " + pathPrefix);
+    }
+    return new NewsQuery(book, pathPrefix, view, allowRobots, from, to);
+  }
+
+  /**
+   * Selects only the news shown in the given view.
+   *
+   * @param  view  the view name or {@code null} for any view
+   *
+   * @return  a new query
+   *
+   * @see  com.semanticcms.news.model.News#getView()
+   */
+  public NewsQuery view(String view) {
+    return new NewsQuery(book, pathPrefix, view, allowRobots, from, to);
+  }
+
+  /**
+   * Selects only the news that allows, or does not allow, robots.  News without its own setting inherits the
+   * setting of the page it is declared in, which in turn inherits from its parent pages and book, as found by
+   * {@link PageUtils#findAllowRobots} when the page is captured.  See {@link NewsSummary#isAllowRobots()}.
+   *
+   * @param  allowRobots  the required setting or {@code null} for either
+   *
+   * @return  a new query
+   */
+  public NewsQuery allowRobots(Boolean allowRobots) {
+    return new NewsQuery(book, pathPrefix, view, allowRobots, from, to);
+  }
+
+  /**
+   * Selects only the news published within the given range.  When either bound is given, news without a
+   * publication date is not selected.
+   *
+   * @param  from  the inclusive start of the range or {@code null} for no lower bound
+   * @param  to  the exclusive end of the range or {@code null} for no upper bound
+   *
+   * @return  a new query
+   */
+  public NewsQuery between(ZonedDateTime from, ZonedDateTime to) {
+    return new NewsQuery(book, pathPrefix, view, allowRobots, from, to);
+  }
+
+  /**
+   * Gets the book name or {@code null} for any book.
+   */
+  public String getBook() {
+    return book;
+  }
+
+  /**
+   * Gets the path prefix or {@code null} for any path.
+   */
+  public String getPathPrefix() {
+    return pathPrefix;
+  }
+
+  /**
+   * Gets the view name or {@code null} for any view.
+   */
+  public String getView() {
+    return view;
+  }
+
+  /**
+   * Gets the required robots setting or {@code null} for either.
+   */
+  public Boolean getAllowRobots() {
+    return allowRobots;
+  }
+
+  /**
+   * Gets the inclusive start of the publication range or {@code null} for no lower bound.
+   */
+  public ZonedDateTime getFrom() {
+    return from;
+  }
+
+  /**
+   * Gets the exclusive end of the publication range or {@code null} for no upper bound.
+   */
+  public ZonedDateTime getTo() {
+    return to;
+  }
+
+  /**
+   * Checks whether this query can select no news at all, such as an empty publication range.
+   */
+  boolean isEmpty() {
+    return from != null && to != null && !from.isBefore(to);
+  }
+
+  /**
+   * Checks whether the news of the given page may be selected, by the book and path prefix.
+   */
+  boolean matchesPage(PageRef pageRef) {
+    return (book == null || book.equals(pageRef.getBookName()))
+        && (pathPrefix == null || pageRef.getPath().startsWith(pathPrefix));
+  }
+
+  /**
+   * Checks whether the given news item is selected, once its page has been matched by
+   * {@link #matchesPage(com.semanticcms.core.model.PageRef)}.
+   *
+   * @param  news  the summary of the news item, with the effective setting for robots recorded at capture
+   */
+  boolean matchesNews(NewsSummary news) {
+    if (view != null && !view.equals(news.getView())) {
+      return false;
+    }
+    if (allowRobots != null && allowRobots != news.isAllowRobots()) {
+      return false;
+    }
+    if (from != null || to != null) {
+      ZonedDateTime pubDate = news.getPubDate();
+      if (pubDate == null || (from != null && pubDate.isBefore(from)) || (to != null && !pubDate.isBefore(to))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether this query selects every news item of any page matching
+   * {@link #matchesPage(com.semanticcms.core.model.PageRef)}.
+   */
+  boolean isAllNews() {
+    return view == null && allowRobots == null && from == null && to == null;
+  }
+
+  /**
+   * Checks whether this query selects every news item of every page.
+   */
+  boolean isAll() {
+    return book == null && pathPrefix == null && isAllNews();
+  }
+}
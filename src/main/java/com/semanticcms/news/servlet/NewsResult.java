@@ -0,0 +1,110 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.news.model.News;
+import java.util.List;
+
+/**
+ * The news found by a traversal with {@link TraversalLimits}, which may be partial when the traversal was stopped
+ * by a limit.
+ *
+ * <p>A partial result contains the news of the pages visited before the traversal stopped, still sorted by news
+ * natural order, so callers can serve a degraded but fast answer.  Partial results should not be cached as if they
+ * were complete, such as in the {@link RssFeedCache}.</p>
+ */
+public final class NewsResult {
+
+  /**
+   * The limit that stopped a traversal.
+   */
+  public enum Limit {
+    /**
+     * The deadline or timeout was reached.
+     */
+    DEADLINE,
+
+    /**
+     * The maximum number of pages were captured.
+     */
+    MAX_PAGES,
+
+    /**
+     * Pages were found below the maximum depth.
+     */
+    MAX_DEPTH,
+
+    /**
+     * The traversal was cancelled or its thread was interrupted.
+     */
+    CANCELLED
+  }
+
+  private final List<News> news;
+  private final Limit stoppedBy;
+  private final int pagesVisited;
+
+  NewsResult(List<News> news, Limit stoppedBy, int pagesVisited) {
+    this.news = news;
+    this.stoppedBy = stoppedBy;
+    this.pagesVisited = pagesVisited;
+  }
+
+  @Override
+  public String toString() {
+    return "NewsResult(" + news.size() + " news, " + pagesVisited + " pages"
+        + (stoppedBy == null ? "" : (", stopped by " + stoppedBy)) + ')';
+  }
+
+  /**
+   * Gets the news found, sorted by news natural order.
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public List<News> getNews() {
+    return news;
+  }
+
+  /**
+   * Checks whether every page was visited, so the news is the same as without limits.
+   */
+  public boolean isComplete() {
+    return stoppedBy == null;
+  }
+
+  /**
+   * Gets the limit that stopped the traversal.
+   *
+   * @return  the limit or {@code null} when {@linkplain #isComplete() complete}
+   */
+  public Limit getStoppedBy() {
+    return stoppedBy;
+  }
+
+  /**
+   * Gets the number of pages visited, whether captured or already current in the index.
+   */
+  public int getPagesVisited() {
+    return pagesVisited;
+  }
+}
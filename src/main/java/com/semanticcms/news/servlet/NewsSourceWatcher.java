@@ -0,0 +1,412 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.SemanticCMS;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Optional monitor of the page sources of each book, enabled by the {@link #ENABLED_INIT_PARAM} context init
+ * parameter, which invalidates the news of each page as soon as its source changes.
+ *
+ * <p>The resource directory of each book is watched with a {@link WatchService}.  Changed sources are mapped to
+ * their pages with the {@linkplain RssUtils#getResourceExtensions() resource extensions}.  Changed includes, which
+ * have {@linkplain RssUtils#isProtectedExtension(java.lang.String) protected extensions}, are mapped to the pages
+ * currently indexed whose sources name them.  Bursts of changes are collected for {@link #DEBOUNCE_INIT_PARAM},
+ * then published as {@linkplain InvalidationEvent#pageChanged(com.semanticcms.core.model.PageRef) page changed}
+ * events through {@link NewsInvalidation}.  The subtrees containing each page are rebuilt on next use, capturing
+ * only the changed pages.</p>
+ *
+ * <p>Only books whose resources are directories on the local file system are watched.  {@code /WEB-INF} is never
+ * watched, and the directory of a book nested within another is watched only as part of the nested book, so each
+ * change is attributed to the most specific book containing it.  When the watch service loses events, the
+ * affected book is published as {@linkplain InvalidationEvent#bookReloaded(java.lang.String) reloaded}.</p>
+ */
+public final class NewsSourceWatcher {
+
+  /**
+   * The context init parameter that enables watching page sources when {@code "true"}.  Defaults to
+   * {@code "false"}.
+   */
+  public static final String ENABLED_INIT_PARAM = NewsSourceWatcher.class.getName() + ".enabled";
+
+  /**
+   * The context init parameter that sets the number of milliseconds without further changes before changes are
+   * published.  Changes are published at least every ten times this, even while changes continue.  Defaults to
+   * 500 milliseconds.
+   */
+  public static final String DEBOUNCE_INIT_PARAM = NewsSourceWatcher.class.getName() + ".debounce";
+
+  private static final Logger logger = Logger.getLogger(NewsSourceWatcher.class.getName());
+
+  /**
+   * Starts watching on start-up, when enabled, and stops on shutdown.
+   */
+  @WebListener("Watches page sources to invalidate their news as soon as they change.")
+  public static class Initializer implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+      ServletContext servletContext = event.getServletContext();
+      String param = servletContext.getInitParameter(ENABLED_INIT_PARAM);
+      if (param != null && Boolean.parseBoolean(param.trim())) {
+        param = servletContext.getInitParameter(DEBOUNCE_INIT_PARAM);
+        long debounce = (param == null || param.isBlank()) ? 500 : Long.parseLong(param.trim());
+        try {
+          NewsSourceWatcher watcher = new NewsSourceWatcher(servletContext, debounce);
+          APPLICATION_ATTRIBUTE.context(servletContext).set(watcher);
+          watcher.thread.start();
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to watch page sources", e);
+        }
+      }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+      ScopeEE.Application.Attribute.Context<NewsSourceWatcher> context =
+          APPLICATION_ATTRIBUTE.context(event.getServletContext());
+      NewsSourceWatcher watcher = context.get();
+      if (watcher != null) {
+        context.remove();
+        watcher.stop();
+      }
+    }
+  }
+
+  private static final ScopeEE.Application.Attribute<NewsSourceWatcher> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(NewsSourceWatcher.class.getName());
+
+  /**
+   * Gets the watcher for the given servlet context.
+   *
+   * @return  the watcher or {@code null} when watching is not enabled
+   */
+  public static NewsSourceWatcher getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).get();
+  }
+
+  /**
+   * A directory being watched within the resources of a book.
+   */
+  private static final class Watched {
+
+    private final Book book;
+    private final Path bookDirectory;
+    private final Path directory;
+
+    private Watched(Book book, Path bookDirectory, Path directory) {
+      this.book = book;
+      this.bookDirectory = bookDirectory;
+      this.directory = directory;
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final long debounce;
+
+  /**
+   * The directory of every book whose resources are on the local file system.
+   */
+  private final Map<Path, Book> bookDirectories = new LinkedHashMap<>();
+
+  /**
+   * The real path of {@code /WEB-INF} or {@code null} when not on the local file system.
+   */
+  private final Path webInfDirectory;
+
+  private final WatchService watchService;
+  private final ConcurrentMap<WatchKey, Watched> watched = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+  private final Thread thread;
+
+  /**
+   * The changes not yet published, along with the time of the first.  Accessed while holding this lock.
+   */
+  private final Object pendingLock = new Object();
+  private final Set<PageRef> pendingPages = new LinkedHashSet<>();
+  private final Map<Book, Set<String>> pendingIncludes = new LinkedHashMap<>();
+  private final Set<String> pendingBooks = new LinkedHashSet<>();
+  private long pendingSince;
+  private ScheduledFuture<?> publish;
+
+  private NewsSourceWatcher(ServletContext servletContext, long debounce) throws IOException {
+    this.servletContext = servletContext;
+    this.debounce = debounce;
+    for (Book book : SemanticCMS.getInstance(servletContext).getBooks().values()) {
+      String realPath = servletContext.getRealPath(book.getName());
+      if (realPath != null) {
+        Path bookDirectory = Paths.get(realPath).normalize();
+        if (Files.isDirectory(bookDirectory)) {
+          bookDirectories.put(bookDirectory, book);
+        }
+      }
+    }
+    String webInfPath = servletContext.getRealPath("/WEB-INF");
+    this.webInfDirectory = (webInfPath == null) ? null : Paths.get(webInfPath).normalize();
+    this.watchService = FileSystems.getDefault().newWatchService();
+    try {
+      for (Map.Entry<Path, Book> entry : bookDirectories.entrySet()) {
+        registerAll(entry.getValue(), entry.getKey(), entry.getKey());
+      }
+    } catch (IOException | RuntimeException e) {
+      watchService.close();
+      throw e;
+    }
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, NewsSourceWatcher.class.getName() + "-publish");
+      t.setDaemon(true);
+      return t;
+    });
+    this.thread = new Thread(this::watch, NewsSourceWatcher.class.getName());
+    this.thread.setDaemon(true);
+  }
+
+  private void stop() {
+    thread.interrupt();
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to close watch service", e);
+    }
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Watches the given directory and all its subdirectories, except {@code /WEB-INF} and the directories of nested
+   * books, which are watched as their own books.
+   *
+   * @return  the files found, which may be new pages when the directory has just been created
+   */
+  private List<Path> registerAll(Book book, Path bookDirectory, Path start) throws IOException {
+    List<Path> files = new ArrayList<>();
+    Files.walkFileTree(start, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        Path normalized = dir.normalize();
+        if (
+            normalized.equals(webInfDirectory)
+                || (!normalized.equals(bookDirectory) && bookDirectories.containsKey(normalized))
+        ) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        WatchKey key = dir.register(
+            watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE
+        );
+        watched.put(key, new Watched(book, bookDirectory, dir));
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        files.add(file);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return files;
+  }
+
+  /**
+   * Receives changes until stopped.
+   */
+  private void watch() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key = watchService.take();
+        Watched w = watched.get(key);
+        if (w != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+              changedBook(w.book);
+            } else {
+              Path file = w.directory.resolve((Path) event.context());
+              if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                // A created directory may be the directory of a nested book, which is then the most specific
+                Book nested = bookDirectories.get(file.normalize());
+                Watched created = (nested == null) ? w : new Watched(nested, file.normalize(), file.normalize());
+                try {
+                  for (Path createdFile : registerAll(created.book, created.bookDirectory, file)) {
+                    changed(created, createdFile);
+                  }
+                } catch (IOException e) {
+                  logger.log(Level.WARNING, "Unable to watch new directory, treating book as reloaded: " + file, e);
+                  changedBook(w.book);
+                }
+              } else {
+                changed(w, file);
+              }
+            }
+          }
+        }
+        if (!key.reset()) {
+          watched.remove(key);
+        }
+      }
+    } catch (InterruptedException e) {
+      // Stopped
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // Stopped
+    }
+  }
+
+  /**
+   * Records a change to a file within the resources of a book.
+   */
+  private void changed(Watched w, Path file) {
+    StringBuilder resourcePath = new StringBuilder();
+    for (Path name : w.bookDirectory.relativize(file)) {
+      resourcePath.append('/').append(name);
+    }
+    String path = resourcePath.toString();
+    synchronized (pendingLock) {
+      if (RssUtils.isProtectedExtension(path)) {
+        pendingIncludes.computeIfAbsent(w.book, k -> new LinkedHashSet<>()).add(file.getFileName().toString());
+      } else {
+        String pagePath = getPagePath(path);
+        if (pagePath == null) {
+          return;
+        }
+        pendingPages.add(new PageRef(w.book, pagePath));
+      }
+      schedulePublish();
+    }
+  }
+
+  /**
+   * Records that the changes to a book are not known.
+   */
+  private void changedBook(Book book) {
+    synchronized (pendingLock) {
+      pendingBooks.add(book.getName());
+      schedulePublish();
+    }
+  }
+
+  /**
+   * Gets the page path for the given source path within a book.
+   *
+   * @return  the page path or {@code null} when not a page source
+   */
+  private static String getPagePath(String path) {
+    for (String extension : RssUtils.RESOURCE_EXTENSIONS) {
+      // Sources without an extension are not distinguished from other resources
+      if (!extension.isEmpty() && path.endsWith(extension)) {
+        String pagePath = path.substring(0, path.length() - extension.length());
+        return pagePath.endsWith("/index") ? pagePath.substring(0, pagePath.length() - "index".length()) : pagePath;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Publishes the pending changes once no more changes arrive for the debounce period.  Called while holding the
+   * pending lock.
+   */
+  private void schedulePublish() {
+    long now = System.currentTimeMillis();
+    if (publish == null) {
+      pendingSince = now;
+    } else if (now - pendingSince < debounce * 10) {
+      publish.cancel(false);
+    } else {
+      // Changes continue, let the scheduled publish proceed
+      return;
+    }
+    publish = scheduler.schedule(this::publish, debounce, TimeUnit.MILLISECONDS);
+  }
+
+  private void publish() {
+    Set<PageRef> pages;
+    Map<Book, Set<String>> includes;
+    Set<String> books;
+    synchronized (pendingLock) {
+      pages = new LinkedHashSet<>(pendingPages);
+      includes = new LinkedHashMap<>(pendingIncludes);
+      books = new LinkedHashSet<>(pendingBooks);
+      pendingPages.clear();
+      pendingIncludes.clear();
+      pendingBooks.clear();
+      publish = null;
+    }
+    // Includes are mapped to the indexed pages whose sources name them
+    NewsIndex newsIndex = NewsIndex.getInstance(servletContext);
+    for (Map.Entry<Book, Set<String>> entry : includes.entrySet()) {
+      String[] fileNames = entry.getValue().toArray(new String[entry.getValue().size()]);
+      for (PageRef pageRef : newsIndex.getIndexedPages(entry.getKey().getName())) {
+        if (PageSources.mayContainNews(servletContext, pageRef, fileNames)) {
+          pages.add(pageRef);
+        }
+      }
+    }
+    NewsInvalidation invalidation = NewsInvalidation.getInstance(servletContext);
+    try {
+      for (String book : books) {
+        invalidation.publish(InvalidationEvent.bookReloaded(book));
+      }
+      for (PageRef pageRef : pages) {
+        if (!books.contains(pageRef.getBookName())) {
+          invalidation.publish(InvalidationEvent.pageChanged(pageRef));
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Unable to publish page source changes", e);
+    }
+  }
+}
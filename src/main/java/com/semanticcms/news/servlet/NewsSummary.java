@@ -0,0 +1,229 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.PageUtils;
+import com.semanticcms.news.model.News;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * A compact, immutable summary of a news item, holding only what feeds and listings need, including the target of
+ * the news for links.
+ *
+ * <p>Unlike {@link News}, a summary does not refer to its {@link com.semanticcms.core.model.Page}, so keeping
+ * summaries does not keep the captured page, with all its elements and links, reachable.  The book name and page
+ * path are shared by all summaries of the same page.  Summaries are the form kept by the {@link NewsIndex}, which
+ * holds captured news only while memory allows.</p>
+ */
+public final class NewsSummary {
+
+  private final String book;
+  private final String page;
+  private final String id;
+  private final String targetBook;
+  private final String targetPage;
+  private final String element;
+  private final String view;
+  private final String title;
+  private final String description;
+  private final ZonedDateTime pubDate;
+  private final Boolean allowRobots;
+  private final boolean effectiveAllowRobots;
+
+  /**
+   * Summarizes the given news item.
+   *
+   * @param  pageRef  the page the news is in, whose book name and path are shared by the summary
+   * @param  pageAllowRobots  whether the page the news is in allows robots, including the setting inherited from
+   *                          its parent pages and book
+   */
+  NewsSummary(PageRef pageRef, News news, boolean pageAllowRobots) {
+    this.book = pageRef.getBookName();
+    this.page = pageRef.getPath();
+    this.id = news.getId();
+    this.targetBook = news.getBook();
+    this.targetPage = news.getTargetPage();
+    this.element = news.getElement();
+    this.view = news.getView();
+    this.title = news.getTitle();
+    this.description = news.getDescription();
+    this.pubDate = news.getPubDate();
+    this.allowRobots = news.getAllowRobots();
+    this.effectiveAllowRobots = (allowRobots != null) ? allowRobots : pageAllowRobots;
+  }
+
+  @Override
+  public String toString() {
+    return book + ':' + page + '#' + id;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof NewsSummary)) {
+      return false;
+    }
+    NewsSummary other = (NewsSummary) obj;
+    return book.equals(other.book)
+        && page.equals(other.page)
+        && Objects.equals(id, other.id)
+        && Objects.equals(targetBook, other.targetBook)
+        && Objects.equals(targetPage, other.targetPage)
+        && Objects.equals(element, other.element)
+        && Objects.equals(view, other.view)
+        && Objects.equals(title, other.title)
+        && Objects.equals(description, other.description)
+        && Objects.equals(pubDate, other.pubDate)
+        && Objects.equals(allowRobots, other.allowRobots)
+        && effectiveAllowRobots == other.effectiveAllowRobots;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        book,
+        page,
+        id,
+        targetBook,
+        targetPage,
+        element,
+        view,
+        title,
+        description,
+        pubDate,
+        allowRobots,
+        effectiveAllowRobots
+    );
+  }
+
+  /**
+   * Gets the name of the book the news is in.
+   */
+  public String getBook() {
+    return book;
+  }
+
+  /**
+   * Gets the path of the page the news is in.
+   */
+  public String getPage() {
+    return page;
+  }
+
+  /**
+   * Gets the id of the news element within its page.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Gets the name of the book the news links to.
+   */
+  public String getTargetBook() {
+    return targetBook;
+  }
+
+  /**
+   * Gets the path of the page the news links to.
+   */
+  public String getTargetPage() {
+    return targetPage;
+  }
+
+  /**
+   * Gets the id of the element the news links to or {@code null} when it links to the page.
+   */
+  public String getElement() {
+    return element;
+  }
+
+  /**
+   * Gets the view the news links to.
+   */
+  public String getView() {
+    return view;
+  }
+
+  /**
+   * Gets the title of the news.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Gets the description of the news or {@code null} when none.
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Gets the publication date of the news.
+   */
+  public ZonedDateTime getPubDate() {
+    return pubDate;
+  }
+
+  /**
+   * Gets the setting of the news itself for robots or {@code null} to inherit from the page it is in.
+   *
+   * @see  #isAllowRobots()
+   */
+  public Boolean getAllowRobots() {
+    return allowRobots;
+  }
+
+  /**
+   * Gets whether robots are allowed, from the setting of the news itself or inherited from the page it is in.  The
+   * setting of the page includes the setting inherited from its parent pages and book, as found by
+   * {@link PageUtils#findAllowRobots} when the page was captured, so this matches the news selected for RSS feeds
+   * and site maps.
+   */
+  public boolean isAllowRobots() {
+    return effectiveAllowRobots;
+  }
+
+  /**
+   * Creates news with the fields of this summary, not yet added to a page.
+   */
+  News toNews() {
+    News news = new News();
+    news.setId(id);
+    news.setBook(targetBook);
+    news.setTargetPage(targetPage);
+    news.setElement(element);
+    news.setView(view);
+    news.setTitle(title);
+    news.setDescription(description);
+    news.setPubDate(pubDate);
+    news.setAllowRobots(allowRobots);
+    return news;
+  }
+}
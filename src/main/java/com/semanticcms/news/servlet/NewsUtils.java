@@ -23,22 +23,30 @@
 
 package com.semanticcms.news.servlet;
 
-import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Book;
 import com.semanticcms.core.model.Page;
 import com.semanticcms.core.servlet.CaptureLevel;
 import com.semanticcms.core.servlet.CapturePage;
+import com.semanticcms.core.servlet.SemanticCMS;
 import com.semanticcms.news.model.News;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Utilities for working with news.
+ *
+ * <p>The news found by these methods is served from the {@link NewsIndex}, which does not keep the captured pages.
+ * The {@linkplain News#getPage() page} of each news item is a compact page with only the page reference, title,
+ * robots setting, child pages, and news of the page it is declared in, whether or not the page has been captured
+ * recently.  The robots setting includes the setting inherited from the parent pages and book, so
+ * {@link com.semanticcms.core.servlet.PageUtils#findAllowRobots} finds the same for the compact page.  Capture the
+ * page with {@link CapturePage} for its other elements, parent pages, or properties.</p>
  */
 public final class NewsUtils {
 
@@ -50,6 +58,11 @@ public final class NewsUtils {
   /**
    * Gets all the new items in the given page and below, sorted by news natural order.
    *
+   * <p>Results are served from the {@link NewsIndex}, which captures only those pages that are not already
+   * current in the index.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
    * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
    */
   public static List<News> findAllNews(
@@ -58,25 +71,212 @@ public final class NewsUtils {
       HttpServletResponse response,
       Page page
   ) throws ServletException, IOException {
-    final List<News> found = new ArrayList<>();
-    CapturePage.traversePagesAnyOrder(
-        servletContext,
-        request,
-        response,
-        page,
-        CaptureLevel.META,
-        p -> {
-          for (Element element : p.getElements()) {
-            if (element instanceof News) {
-              found.add((News) element);
-            }
-          }
-          return null;
-        },
-        Page::getChildRefs,
-        childPage -> childPage.getBook() != null
-    );
-    Collections.sort(found);
-    return Collections.unmodifiableList(found);
+    return NewsIndex.getInstance(servletContext).getAllNews(request, response, page);
+  }
+
+  /**
+   * Gets summaries of all the news items in the given page and below, sorted by news natural order.
+   *
+   * <p>Summaries do not refer to their captured pages, so they may be kept by feeds and listings without keeping
+   * the pages reachable.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  #findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)
+   */
+  public static List<NewsSummary> findAllNewsSummaries(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).getAllNewsSummaries(request, response, page);
+  }
+
+  /**
+   * Takes a snapshot of the summaries of the news in all books, sorted by news natural order.  The pages of every
+   * book are indexed first, capturing only those pages not already current in the index.  The global index is
+   * maintained from the first call on.  The snapshot must be closed.
+   *
+   * @see  GlobalNewsIndex#snapshot()
+   */
+  public static GlobalNewsIndex.Snapshot snapshotAllNews(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response
+  ) throws ServletException, IOException {
+    NewsIndex newsIndex = NewsIndex.getInstance(servletContext);
+    for (Book book : SemanticCMS.getInstance(servletContext).getBooks().values()) {
+      Page contentRoot = CapturePage.capturePage(
+          servletContext,
+          request,
+          response,
+          book.getContentRoot(),
+          CaptureLevel.META
+      );
+      newsIndex.getAllNews(request, response, contentRoot);
+    }
+    return newsIndex.snapshotAllNews();
+  }
+
+  /**
+   * Gets a page of the news items in the given page and below, sorted by news natural order.
+   *
+   * <p>Only the first offset + limit items are kept while visiting the pages, so this is much cheaper than
+   * {@link #findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}
+   * for feeds and listings that show only the newest items.  For deep pagination, prefer
+   * {@link #findNewsAfter(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsCursor, int)}.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  limit  the maximum number of items to return
+   * @param  offset  the number of items to skip
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public static List<News> findNews(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      int limit,
+      int offset
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).getNews(request, response, page, null, offset, limit);
+  }
+
+  /**
+   * Gets the news items in the given page and below selected by the given query, sorted by news natural order.
+   *
+   * <p>The query is pushed into the traversal: subtrees already current in the {@link NewsIndex} with no news
+   * declared in its book, under its path prefix, and matching its other filters are not visited.  This is much
+   * cheaper than filtering the result of
+   * {@link #findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}
+   * when only a part of the tree is wanted.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public static List<News> findNews(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsQuery query
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).getNews(request, response, page, query);
+  }
+
+  /**
+   * Gets the news items in the given page and below selected by the given query, sorted by news natural order,
+   * stopping the traversal at the given limits.  Use {@link NewsQuery#ALL} for all news, as found by
+   * {@link #findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}.
+   *
+   * <p>When the traversal is stopped by a limit, the result has the news of the pages visited so far and is not
+   * {@linkplain NewsResult#isComplete() complete}, so feeds and views can serve a degraded but fast answer instead
+   * of timing out.  Subtrees already current in the {@link NewsIndex} are answered completely without a
+   * traversal.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public static NewsResult findNews(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsQuery query,
+      TraversalLimits limits
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).getNews(request, response, page, query, limits);
+  }
+
+  /**
+   * Gets the news items in the given page and below that are after the given position, sorted by news natural
+   * order.  This resumes pagination from the last item seen, without the cost of skipping an offset.  The cursor
+   * of the last item seen is found by {@link NewsCursor#of(com.semanticcms.news.model.News)} and may be passed
+   * between requests in its {@linkplain NewsCursor#toString() serialized form}.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  after  the position of the last item seen or {@code null} to start from the first item
+   * @param  limit  the maximum number of items to return
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public static List<News> findNewsAfter(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      NewsCursor after,
+      int limit
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).getNews(request, response, page, after, 0, limit);
+  }
+
+  /**
+   * Gets the news items in the given page and below published within the given range, sorted by news natural
+   * order.  The news index buckets news by month, so only the months overlapping the range are visited.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  from  the inclusive start of the range or {@code null} for no lower bound
+   * @param  to  the exclusive end of the range or {@code null} for no upper bound
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public static List<News> findNewsBetween(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      ZonedDateTime from,
+      ZonedDateTime to
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).getNewsBetween(request, response, page, from, to);
+  }
+
+  /**
+   * Gets the news items in the given page and below published on or after the given time, sorted by news natural
+   * order.
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  since  the inclusive start of the range
+   *
+   * @see  #findNewsBetween(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, java.time.ZonedDateTime, java.time.ZonedDateTime)
+   */
+  public static List<News> findNewsSince(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      ZonedDateTime since
+  ) throws ServletException, IOException {
+    return findNewsBetween(servletContext, request, response, page, since, null);
+  }
+
+  /**
+   * Streams the news items in the given page and below.  The stream must be consumed while the request is active.
+   *
+   * <p>When not sorted, pages are captured only as the stream is consumed, so short-circuiting operations such as
+   * {@link Stream#findAny()} or {@link Stream#limit(long)} stop the traversal once satisfied.  When sorted, the stream
+   * is backed by the sorted subtree in the {@link NewsIndex}, so no sort is performed on warm requests.</p>
+   *
+   * <p>Any {@link IOException} during the traversal is thrown as {@link java.io.UncheckedIOException} and any
+   * {@link ServletException} is thrown as {@link com.aoapps.lang.exception.WrappedException}.</p>
+   *
+   * @param  page  the page, captured at {@link CaptureLevel#META} or higher
+   * @param  sorted  {@code true} for news natural order or {@code false} for any order
+   *
+   * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+   */
+  public static Stream<News> streamNews(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page,
+      boolean sorted
+  ) throws ServletException, IOException {
+    return NewsIndex.getInstance(servletContext).streamNews(request, response, page, sorted);
   }
 }
@@ -0,0 +1,273 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.core.model.PageRef;
+import jakarta.servlet.ServletContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Locates the source resources of pages, used to detect when the news of a page may have changed.
+ */
+public final class PageSources {
+
+  /** Make no instances. */
+  private PageSources() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The last modified time used when the source of a page cannot be determined.
+   */
+  public static final long UNKNOWN = 0;
+
+  /**
+   * The text found in any page source that may declare news: the news and changelog tag libraries and the news
+   * servlet API.  The resources included by the source are scanned for the same.
+   */
+  static final String[] DEFAULT_NEWS_MARKERS = {
+      "semanticcms.com/news/",
+      "semanticcms.com/changelog/",
+      "com.semanticcms.news."
+  };
+
+  /**
+   * Matches the static and dynamic includes of a JSP or JSPX source that have a literal path.
+   */
+  private static final Pattern INCLUDE = Pattern.compile(
+      "<(?:jsp:directive\\.include|%@\\s*include|jsp:include)\\s[^>]*?\\b(?:file|page)\\s*=\\s*[\"']([^\"'$<]+)[\"']"
+  );
+
+  /**
+   * Matches the static and dynamic includes of a JSP or JSPX source, whether their path is literal or computed.
+   */
+  private static final Pattern INCLUDE_TAG = Pattern.compile(
+      "<(?:jsp:directive\\.include|%@\\s*include|jsp:include)\\s"
+  );
+
+  /**
+   * Gets the resource path of the source for the given page, in the same order as the resource extensions are
+   * checked by {@link RssUtils}.
+   *
+   * @return  the resource path or {@code null} when no source resource found
+   */
+  public static String getSourcePath(ServletContext servletContext, PageRef pageRef) throws MalformedURLException {
+    String servletPath = pageRef.getServletPath();
+    if (servletPath.endsWith("/")) {
+      servletPath += "index";
+    }
+    for (String extension : RssUtils.RESOURCE_EXTENSIONS) {
+      String resourcePath = servletPath + extension;
+      if (!RssUtils.isProtectedExtension(resourcePath) && servletContext.getResource(resourcePath) != null) {
+        return resourcePath;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets the last modified time of the source for the given page.
+   *
+   * @return  the last modified time or {@link #UNKNOWN} when no source resource found
+   */
+  public static long getLastModified(ServletContext servletContext, PageRef pageRef) {
+    try {
+      String resourcePath = getSourcePath(servletContext, pageRef);
+      return (resourcePath == null) ? UNKNOWN : getResourceLastModified(servletContext, resourcePath);
+    } catch (IOException e) {
+      return UNKNOWN;
+    }
+  }
+
+  /**
+   * Gets the last modified time of the given resource.
+   *
+   * @return  the last modified time or {@link #UNKNOWN} when the resource is not found
+   */
+  public static long getResourceLastModified(ServletContext servletContext, String resourcePath) {
+    try {
+      String realPath = servletContext.getRealPath(resourcePath);
+      if (realPath != null) {
+        File file = new File(realPath);
+        if (file.isFile()) {
+          return file.lastModified();
+        }
+      }
+      URL url = servletContext.getResource(resourcePath);
+      if (url == null) {
+        return UNKNOWN;
+      }
+      URLConnection conn = url.openConnection();
+      long lastModified = conn.getLastModified();
+      // Close the connection, opened by getLastModified() for some protocols
+      conn.getInputStream().close();
+      return lastModified;
+    } catch (IOException e) {
+      return UNKNOWN;
+    }
+  }
+
+  /**
+   * Reads a resource as UTF-8.
+   *
+   * @return  the content or {@code null} when the resource is not found
+   */
+  private static String readResource(ServletContext servletContext, String resourcePath) throws IOException {
+    URL url = servletContext.getResource(resourcePath);
+    if (url == null) {
+      return null;
+    }
+    try (InputStream in = url.openStream()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Scans the source of the given page for any of the given markers, to find pages that cannot declare news.
+   * Only JSP and JSPX sources are scanned.  The resources {@linkplain #getIncludes(jakarta.servlet.ServletContext, com.semanticcms.core.model.PageRef) included}
+   * by the source are scanned the same, since they may declare news for the page.  An include with a computed path
+   * cannot be scanned, so may declare news.
+   *
+   * @return  {@code false} only when the page has a JSP or JSPX source where neither the source nor any resource
+   *          it includes contains any of the markers
+   */
+  public static boolean mayContainNews(ServletContext servletContext, PageRef pageRef, String... markers) {
+    try {
+      String resourcePath = getSourcePath(servletContext, pageRef);
+      if (resourcePath == null || !(resourcePath.endsWith(".jspx") || resourcePath.endsWith(".jsp"))) {
+        // Pages implemented otherwise may declare news in ways that cannot be scanned
+        return true;
+      }
+      String source = readResource(servletContext, resourcePath);
+      if (source == null || mayContainNews(source, markers)) {
+        return true;
+      }
+      for (String include : getIncludes(servletContext, pageRef)) {
+        String included = readResource(servletContext, include);
+        if (included == null || mayContainNews(included, markers)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Checks whether the given source contains any of the given markers or includes a resource by a computed path.
+   */
+  private static boolean mayContainNews(String source, String... markers) {
+    for (String marker : markers) {
+      if (source.contains(marker)) {
+        return true;
+      }
+    }
+    int includes = 0;
+    Matcher matcher = INCLUDE_TAG.matcher(source);
+    while (matcher.find()) {
+      includes++;
+    }
+    matcher = INCLUDE.matcher(source);
+    while (matcher.find()) {
+      includes--;
+    }
+    return includes > 0;
+  }
+
+  /**
+   * Gets the resources included by the source of the given page, directly or through other included JSP
+   * resources.  Only JSP and JSPX sources are scanned, and includes with computed paths are not found.
+   *
+   * @return  the resource paths of the included resources that exist, in the order found
+   */
+  public static Set<String> getIncludes(ServletContext servletContext, PageRef pageRef) {
+    Set<String> includes = new LinkedHashSet<>();
+    try {
+      String resourcePath = getSourcePath(servletContext, pageRef);
+      if (resourcePath != null) {
+        addIncludes(servletContext, resourcePath, includes);
+      }
+    } catch (IOException e) {
+      // The includes found so far are returned, others cannot be checked
+    }
+    return includes.isEmpty() ? Collections.emptySet() : includes;
+  }
+
+  private static void addIncludes(
+      ServletContext servletContext,
+      String resourcePath,
+      Set<String> includes
+  ) throws IOException {
+    if (!(resourcePath.endsWith(".jspx") || resourcePath.endsWith(".jsp") || resourcePath.endsWith(".jspf"))) {
+      return;
+    }
+    String source = readResource(servletContext, resourcePath);
+    if (source == null) {
+      return;
+    }
+    Matcher matcher = INCLUDE.matcher(source);
+    while (matcher.find()) {
+      String path = matcher.group(1).trim();
+      int query = path.indexOf('?');
+      if (query != -1) {
+        path = path.substring(0, query);
+      }
+      if (path.isEmpty()) {
+        continue;
+      }
+      if (!path.startsWith("/")) {
+        // Relative to the including resource
+        path = resourcePath.substring(0, resourcePath.lastIndexOf('/') + 1) + path;
+      }
+      String included;
+      try {
+        included = new URI(null, null, path, null).normalize().getPath();
+      } catch (URISyntaxException e) {
+        continue;
+      }
+      if (
+          included.startsWith("/")
+              && !included.startsWith("/../")
+              && servletContext.getResource(included) != null
+              && includes.add(included)
+      ) {
+        addIncludes(servletContext, included, includes);
+      }
+    }
+  }
+}
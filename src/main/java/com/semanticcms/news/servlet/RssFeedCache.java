@@ -0,0 +1,276 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.PageRef;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Application-scoped cache of serialized RSS feeds, keyed by {@linkplain RssUtils#getRssServletPath(com.semanticcms.core.model.PageRef)
+ * RSS servlet path} and by the scheme, host, port, and context path of the request.  Feeds contain absolute URLs,
+ * so a feed serialized for one host is never served to another.
+ *
+ * <p>A cached feed remains valid while the subtree of its page is current in the {@link NewsIndex}, which is
+ * checked without capturing any pages.  The entity tag and last modified time are derived from the page versions
+ * and the newest publication date in the subtree, so conditional requests may be answered without any traversal:</p>
+ *
+ * <pre>RssFeedCache.Feed feed = RssFeedCache.getInstance(servletContext).get(request, pageRef);
+ * if (feed == null) {
+ *   // Capture page, find news, and serialize feed
+ *   feed = RssFeedCache.getInstance(servletContext).put(request, pageRef, content);
+ * }
+ * if (!RssFeedCache.checkNotModified(request, response, feed)) {
+ *   response.setContentType(RssUtils.CONTENT_TYPE);
+ *   feed.writeTo(response.getOutputStream());
+ * }</pre>
+ */
+public final class RssFeedCache {
+
+  private static final ScopeEE.Application.Attribute<RssFeedCache> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(RssFeedCache.class.getName());
+
+  /**
+   * Gets the RSS feed cache for the given servlet context.
+   */
+  public static RssFeedCache getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new RssFeedCache(servletContext));
+  }
+
+  /**
+   * A serialized RSS feed.
+   */
+  public static final class Feed {
+
+    private final NewsIndex.Version version;
+    private final byte[] content;
+
+    private Feed(NewsIndex.Version version, byte[] content) {
+      this.version = version;
+      this.content = content;
+    }
+
+    /**
+     * Gets the strong entity tag, including surrounding quotes.
+     */
+    public String getEtag() {
+      return version.getEtag();
+    }
+
+    /**
+     * Gets the last modified time, which is the newest of the publication dates and page source modification
+     * times in the subtree.
+     */
+    public long getLastModified() {
+      return version.getLastModified();
+    }
+
+    /**
+     * Gets the length of the serialized feed, in bytes.
+     */
+    public int getContentLength() {
+      return content.length;
+    }
+
+    /**
+     * Gets a copy of the serialized feed.
+     */
+    public byte[] getContent() {
+      return Arrays.copyOf(content, content.length);
+    }
+
+    /**
+     * Writes the serialized feed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+      out.write(content);
+    }
+  }
+
+  private static final class Entry {
+
+    private final PageRef pageRef;
+    private final Feed feed;
+
+    private Entry(PageRef pageRef, Feed feed) {
+      this.pageRef = pageRef;
+      this.feed = feed;
+    }
+  }
+
+  private final NewsIndex newsIndex;
+
+  /**
+   * The feeds by RSS servlet path, then by base URL.
+   */
+  private final ConcurrentMap<String, ConcurrentMap<String, Entry>> feeds = new ConcurrentHashMap<>();
+
+  private RssFeedCache(ServletContext servletContext) {
+    this.newsIndex = NewsIndex.getInstance(servletContext);
+    NewsInvalidation.getInstance(servletContext).subscribe(new NewsInvalidation.Subscriber() {
+      @Override
+      public void invalidatePages(Set<PageRef> pageRefs) {
+        for (PageRef pageRef : pageRefs) {
+          invalidate(pageRef);
+        }
+      }
+
+      @Override
+      public void invalidateBook(String book) {
+        for (ConcurrentMap<String, Entry> byBaseUrl : feeds.values()) {
+          byBaseUrl.values().removeIf(entry -> entry.pageRef.getBookName().equals(book));
+        }
+      }
+    });
+  }
+
+  /**
+   * Gets the scheme, host, port, and context path the absolute URLs in a feed are generated from.
+   */
+  private static String getBaseUrl(HttpServletRequest request) {
+    String scheme = request.getScheme();
+    int port = request.getServerPort();
+    StringBuilder baseUrl = new StringBuilder().append(scheme).append("://").append(request.getServerName());
+    if (!(("http".equalsIgnoreCase(scheme) && port == 80) || ("https".equalsIgnoreCase(scheme) && port == 443))) {
+      baseUrl.append(':').append(port);
+    }
+    return baseUrl.append(request.getContextPath()).toString();
+  }
+
+  /**
+   * Gets the cached feed for the given page, as serialized for the scheme, host, and port of the given request,
+   * without capturing any pages.
+   *
+   * @return  the feed or {@code null} when not cached or the news of the page may have changed
+   */
+  public Feed get(HttpServletRequest request, PageRef pageRef) {
+    ConcurrentMap<String, Entry> byBaseUrl = feeds.get(RssUtils.getRssServletPath(pageRef));
+    if (byBaseUrl == null) {
+      return null;
+    }
+    String baseUrl = getBaseUrl(request);
+    Entry entry = byBaseUrl.get(baseUrl);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.pageRef.equals(pageRef) && entry.feed.version.equals(newsIndex.getVersion(request, pageRef))) {
+      return entry.feed;
+    }
+    byBaseUrl.remove(baseUrl, entry);
+    return null;
+  }
+
+  /**
+   * Caches the serialized feed for the given page, as serialized for the scheme, host, and port of the given
+   * request.  The feed must have been generated from the news currently in
+   * the {@link NewsIndex}, such as from {@link NewsUtils#findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}.
+   *
+   * @return  the feed, which is not cached when the subtree of the page is not current in the index
+   */
+  public Feed put(HttpServletRequest request, PageRef pageRef, byte[] content) {
+    NewsIndex.Version version = newsIndex.getVersion(request, pageRef);
+    if (version == null) {
+      // Unable to detect changes, use a version that will never match a subtree
+      return new Feed(
+          new NewsIndex.Version("\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"", System.currentTimeMillis()),
+          Arrays.copyOf(content, content.length)
+      );
+    }
+    Feed feed = new Feed(version, Arrays.copyOf(content, content.length));
+    feeds.computeIfAbsent(RssUtils.getRssServletPath(pageRef), k -> new ConcurrentHashMap<>())
+        .put(getBaseUrl(request), new Entry(pageRef, feed));
+    return feed;
+  }
+
+  /**
+   * Removes the cached feeds for the given page, for every host.
+   */
+  public void invalidate(PageRef pageRef) {
+    feeds.remove(RssUtils.getRssServletPath(pageRef));
+  }
+
+  /**
+   * Removes all cached feeds.
+   */
+  public void clear() {
+    feeds.clear();
+  }
+
+  /**
+   * Sets the {@code ETag} and {@code Last-Modified} headers for the given feed, then sends
+   * {@link HttpServletResponse#SC_NOT_MODIFIED} when the request is conditional and the feed has not changed.
+   * {@code If-None-Match} takes precedence over {@code If-Modified-Since}.
+   *
+   * @return  {@code true} when {@link HttpServletResponse#SC_NOT_MODIFIED} has been sent and the feed must not be
+   *          written
+   */
+  public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, Feed feed) {
+    String etag = feed.getEtag();
+    long lastModified = feed.getLastModified();
+    response.setHeader("ETag", etag);
+    if (lastModified > 0) {
+      response.setDateHeader("Last-Modified", lastModified);
+    }
+    boolean notModified;
+    Enumeration<String> ifNoneMatches = request.getHeaders("If-None-Match");
+    if (ifNoneMatches != null && ifNoneMatches.hasMoreElements()) {
+      notModified = false;
+      while (!notModified && ifNoneMatches.hasMoreElements()) {
+        for (String tag : ifNoneMatches.nextElement().split(",")) {
+          tag = tag.trim();
+          // Weak comparison, as required for If-None-Match
+          if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+          }
+          if ("*".equals(tag) || etag.equals(tag)) {
+            notModified = true;
+            break;
+          }
+        }
+      }
+    } else {
+      long ifModifiedSince;
+      try {
+        ifModifiedSince = request.getDateHeader("If-Modified-Since");
+      } catch (IllegalArgumentException e) {
+        ifModifiedSince = -1;
+      }
+      // HTTP dates have one-second resolution
+      notModified = ifModifiedSince != -1 && lastModified > 0 && (lastModified / 1000) <= (ifModifiedSince / 1000);
+    }
+    if (notModified) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+    return notModified;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.PageRef;
+import jakarta.servlet.ServletContext;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Application-scoped mapping between pages and the servlet paths of their RSS feeds, in both directions.
+ *
+ * <p>Pages are registered as they are indexed by the {@link NewsIndex}, and unregistered once their source
+ * resource is found to have been removed.  This allows a request for an RSS feed to find its page with a single
+ * lookup instead of probing for the page source with each of the {@linkplain RssUtils#getResourceExtensions()
+ * resource extensions}.</p>
+ */
+public final class RssPathRegistry {
+
+  private static final ScopeEE.Application.Attribute<RssPathRegistry> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(RssPathRegistry.class.getName());
+
+  /**
+   * Gets the RSS path registry for the given servlet context.
+   */
+  public static RssPathRegistry getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new RssPathRegistry(servletContext));
+  }
+
+  private final ConcurrentMap<PageRef, String> rssServletPaths = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, PageRef> pageRefs = new ConcurrentHashMap<>();
+
+  private RssPathRegistry(ServletContext servletContext) {
+    NewsInvalidation.getInstance(servletContext).subscribe(new NewsInvalidation.Subscriber() {
+      @Override
+      public void invalidatePages(Set<PageRef> pageRefs) {
+        // Feed paths are determined by the page paths, so remain valid until the sources are removed
+      }
+
+      @Override
+      public void invalidateBook(String book) {
+        // The pages of a reloaded book may have been removed
+        for (PageRef pageRef : rssServletPaths.keySet()) {
+          if (pageRef.getBookName().equals(book)) {
+            unregister(pageRef);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Registers the given page.
+   */
+  void register(PageRef pageRef) {
+    if (!rssServletPaths.containsKey(pageRef)) {
+      String rssServletPath = RssUtils.getRssServletPath(pageRef);
+      pageRefs.put(rssServletPath, pageRef);
+      rssServletPaths.put(pageRef, rssServletPath);
+    }
+  }
+
+  /**
+   * Unregisters the given page, once its source resource has been removed.
+   */
+  void unregister(PageRef pageRef) {
+    String rssServletPath = rssServletPaths.remove(pageRef);
+    if (rssServletPath != null) {
+      pageRefs.remove(rssServletPath, pageRef);
+    }
+  }
+
+  /**
+   * Gets the servlet path to the RSS feed for the given page.
+   *
+   * @see  RssUtils#getRssServletPath(com.semanticcms.core.model.PageRef)
+   */
+  public String getRssServletPath(PageRef pageRef) {
+    String rssServletPath = rssServletPaths.get(pageRef);
+    return (rssServletPath != null) ? rssServletPath : RssUtils.getRssServletPath(pageRef);
+  }
+
+  /**
+   * Gets the page for the given RSS feed servlet path.
+   *
+   * @return  the page or {@code null} when no registered page has the given feed, in which case the page source
+   *          must be found by probing
+   */
+  public PageRef getPageRef(String rssServletPath) {
+    return pageRefs.get(rssServletPath);
+  }
+
+  /**
+   * Gets the number of pages registered.
+   */
+  public int size() {
+    return rssServletPaths.size();
+  }
+}
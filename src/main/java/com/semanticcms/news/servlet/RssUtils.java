@@ -70,7 +70,7 @@ public final class RssUtils {
   /**
    * The resources in the order they will be checked, last one assumed if none specifically found as a resource.
    */
-  private static final String[] RESOURCE_EXTENSIONS = {
+  static final String[] RESOURCE_EXTENSIONS = {
       ".jspx",
       ".jsp",
       ""
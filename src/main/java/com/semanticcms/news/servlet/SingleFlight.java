@@ -0,0 +1,159 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent calls with the same key, so only one thread performs the call while the others wait for
+ * its result.
+ *
+ * <p>When the call fails, its exception is thrown to every thread waiting for it, so a failing call is performed
+ * once, not once per waiting thread.</p>
+ *
+ * <p>A thread that calls again from within the call it is performing performs the call itself, preventing
+ * deadlock on its own call.  When a call depends, directly or through another thread, on another call with the
+ * same key, the waiting threads may never get a result.  So the first waiting thread to time out takes over,
+ * performing the call itself while the other waiting threads, including those timing out later, wait for the call
+ * of the thread that took over instead.  Each timeout starts at most one more call.</p>
+ *
+ * @param  <K>  the type of key identifying equivalent calls
+ * @param  <V>  the type of result, which must not be {@code null}
+ */
+final class SingleFlight<K, V> {
+
+  /**
+   * A call that may be coalesced.
+   */
+  @FunctionalInterface
+  interface Call<V> {
+    V call() throws ServletException, IOException;
+  }
+
+  private static final class Flight<V> {
+
+    private final Thread leader = Thread.currentThread();
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+  }
+
+  private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+  private final long timeout;
+  private final Runnable onJoined;
+
+  /**
+   * @param  timeout  the maximum number of milliseconds to wait for another thread before taking over, or zero to
+   *                  never coalesce
+   * @param  onJoined  notified each time a call is answered by another thread
+   */
+  SingleFlight(long timeout, Runnable onJoined) {
+    this.timeout = timeout;
+    this.onJoined = onJoined;
+  }
+
+  /**
+   * Performs the given call, or waits for the result of an equivalent call already being performed.
+   *
+   * @throws  ServletException  when the call failed, including when performed by another thread
+   * @throws  IOException  when the call failed, including when performed by another thread, or
+   *                       {@link InterruptedIOException} when interrupted while waiting
+   */
+  V execute(K key, Call<V> call) throws ServletException, IOException {
+    if (timeout <= 0) {
+      return call.call();
+    }
+    Flight<V> flight = new Flight<>();
+    while (true) {
+      Flight<V> existing = flights.putIfAbsent(key, flight);
+      if (existing == null) {
+        break;
+      }
+      if (existing.leader == Thread.currentThread()) {
+        // Re-entrant, perform the call without coalescing
+        return call.call();
+      }
+      try {
+        V result = await(existing);
+        onJoined.run();
+        return result;
+      } catch (TimeoutException e) {
+        // Take over, unless another waiting thread has already taken over or the call has just completed
+        if (flights.replace(key, existing, flight)) {
+          break;
+        }
+      }
+    }
+    try {
+      V result = call.call();
+      flight.result.complete(result);
+      return result;
+    } catch (Throwable t) {
+      flight.result.completeExceptionally(t);
+      throw t;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  /**
+   * Waits for the result of another thread.
+   *
+   * @throws  ServletException  the exception of the other thread
+   * @throws  IOException  the exception of the other thread, or {@link InterruptedIOException} when interrupted
+   * @throws  TimeoutException  when the other thread has not completed within the timeout
+   */
+  private V await(Flight<V> flight) throws ServletException, IOException, TimeoutException {
+    try {
+      return flight.result.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ServletException) {
+        throw (ServletException) cause;
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AssertionError(cause);
+    } catch (InterruptedException e) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(e);
+      throw ioErr;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import com.semanticcms.news.model.News;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the first news items in news natural order, keeping no more than the number of items requested.
+ * Selection from <i>n</i> items is <i>O(n log k)</i> where <i>k</i> is offset + limit.
+ *
+ * @see  com.semanticcms.news.model.News#compareTo(com.semanticcms.news.model.News)
+ */
+final class TopNews {
+
+  private final News after;
+  private final int offset;
+  private final int capacity;
+
+  /**
+   * The selected items, with the last item in natural order at the head.
+   */
+  private final PriorityQueue<News> heap;
+
+  /**
+   * Creates a new selection.
+   *
+   * @param  after  when non-null, only items strictly after this item in natural order are selected, such as
+   *                 created by {@link NewsCursor#toNews(jakarta.servlet.ServletContext)}
+   */
+  TopNews(News after, int offset, int limit) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset < 0: " + offset);
+    }
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit < 0: " + limit);
+    }
+    this.after = after;
+    this.offset = offset;
+    long sum = (long) offset + limit;
+    this.capacity = sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    this.heap = new PriorityQueue<>(Math.min(capacity, 1024) + 1, Collections.reverseOrder());
+  }
+
+  /**
+   * Offers the given item for selection.
+   */
+  void offer(News news) {
+    if (capacity == 0 || (after != null && news.compareTo(after) <= 0)) {
+      return;
+    }
+    if (heap.size() < capacity) {
+      heap.add(news);
+    } else if (news.compareTo(heap.peek()) < 0) {
+      heap.poll();
+      heap.add(news);
+    }
+  }
+
+  /**
+   * Offers all the given items for selection.
+   */
+  void offerAll(Iterable<? extends News> news) {
+    for (News n : news) {
+      offer(n);
+    }
+  }
+
+  /**
+   * Gets the selected items, after skipping the offset, sorted by news natural order.
+   */
+  List<News> toList() {
+    List<News> sorted = new ArrayList<>(heap);
+    Collections.sort(sorted);
+    if (offset >= sorted.size()) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(sorted.subList(offset, sorted.size()));
+  }
+
+  /**
+   * Selects from a list already sorted by news natural order, which requires no traversal of the list.
+   */
+  static List<News> fromSorted(List<News> sorted, News after, int offset, int limit) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset < 0: " + offset);
+    }
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit < 0: " + limit);
+    }
+    int start;
+    if (after == null) {
+      start = 0;
+    } else {
+      // Find the first item strictly after the cursor
+      int low = 0;
+      int high = sorted.size();
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (sorted.get(mid).compareTo(after) <= 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      start = low;
+    }
+    int from = (int) Math.min((long) start + offset, sorted.size());
+    int to = (int) Math.min((long) from + limit, sorted.size());
+    return sorted.subList(from, to);
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.servlet;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Immutable limits on a news traversal, so a request is answered in bounded time even on very deep trees or when
+ * a linked book is slow.  Each method returns new limits with one more limit, starting from {@link #NONE}:
+ *
+ * <pre>TraversalLimits.NONE.timeout(Duration.ofSeconds(2)).maxPages(10000)</pre>
+ *
+ * <p>Limits are checked before visiting each page, between page captures, so a single slow capture may overrun the
+ * deadline.  Pages already current in the {@link NewsIndex} are cheap to visit, so only the pages captured count
+ * towards {@link #maxPages(int)}.  A traversal stopped by a limit returns the news of the pages visited so far, and its
+ * {@link NewsResult} is not {@linkplain NewsResult#isComplete() complete}.</p>
+ *
+ * @see  NewsUtils#findNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.semanticcms.news.servlet.NewsQuery, com.semanticcms.news.servlet.TraversalLimits)
+ */
+public final class TraversalLimits {
+
+  /**
+   * No limits, so traversals are always complete.
+   */
+  public static final TraversalLimits NONE =
+      new TraversalLimits(null, null, Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+
+  private final Instant deadline;
+  private final Duration timeout;
+  private final int maxPages;
+  private final int maxDepth;
+  private final BooleanSupplier cancelled;
+
+  private TraversalLimits(Instant deadline, Duration timeout, int maxPages, int maxDepth, BooleanSupplier cancelled) {
+    this.deadline = deadline;
+    this.timeout = timeout;
+    this.maxPages = maxPages;
+    this.maxDepth = maxDepth;
+    this.cancelled = cancelled;
+  }
+
+  @Override
+  public String toString() {
+    return "TraversalLimits(deadline=" + deadline + ", timeout=" + timeout + ", maxPages=" + maxPages
+        + ", maxDepth=" + maxDepth + ", cancellable=" + (cancelled != null) + ')';
+  }
+
+  /**
+   * Stops the traversal at the given time.
+   *
+   * @param  deadline  the deadline or {@code null} for none
+   *
+   * @return  new limits
+   */
+  public TraversalLimits deadline(Instant deadline) {
+    return new TraversalLimits(deadline, timeout, maxPages, maxDepth, cancelled);
+  }
+
+  /**
+   * Stops the traversal once it has run for the given time.  When both a deadline and a timeout are given, the
+   * traversal stops at whichever comes first.
+   *
+   * @param  timeout  the timeout or {@code null} for none
+   *
+   * @return  new limits
+   */
+  public TraversalLimits timeout(Duration timeout) {
+    if (timeout != null && timeout.isNegative()) {
+      throw new IllegalArgumentException("timeout < 0: " + timeout);
+    }
+    return new TraversalLimits(deadline, timeout, maxPages, maxDepth, cancelled);
+  }
+
+  /**
+   * Stops the traversal before it captures more than the given number of pages.  Pages already current in the
+   * index are visited without being counted.  Zero visits only the pages already current in the index.
+   *
+   * @return  new limits
+   */
+  public TraversalLimits maxPages(int maxPages) {
+    if (maxPages < 0) {
+      throw new IllegalArgumentException("maxPages < 0: " + maxPages);
+    }
+    return new TraversalLimits(deadline, timeout, maxPages, maxDepth, cancelled);
+  }
+
+  /**
+   * Does not visit pages more than the given number of levels below the page the traversal starts from.  Zero
+   * visits only the page itself.
+   *
+   * @return  new limits
+   */
+  public TraversalLimits maxDepth(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth < 0: " + maxDepth);
+    }
+    return new TraversalLimits(deadline, timeout, maxPages, maxDepth, cancelled);
+  }
+
+  /**
+   * Stops the traversal once the given condition is {@code true}, such as when the client has disconnected.  The
+   * traversal is also stopped when its thread is interrupted, leaving the interrupted status set.
+   *
+   * @param  cancelled  the condition or {@code null} to be stopped only by interrupt
+   *
+   * @return  new limits
+   */
+  public TraversalLimits cancelled(BooleanSupplier cancelled) {
+    return new TraversalLimits(deadline, timeout, maxPages, maxDepth, cancelled);
+  }
+
+  /**
+   * Gets the deadline or {@code null} for none.
+   */
+  public Instant getDeadline() {
+    return deadline;
+  }
+
+  /**
+   * Gets the timeout or {@code null} for none.
+   */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Gets the maximum number of pages captured or {@link Integer#MAX_VALUE} for no limit.
+   */
+  public int getMaxPages() {
+    return maxPages;
+  }
+
+  /**
+   * Gets the maximum depth or {@link Integer#MAX_VALUE} for no limit.
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Checks whether these limits never stop a traversal, other than by interrupt.
+   */
+  boolean isUnbounded() {
+    return deadline == null && timeout == null && maxPages == Integer.MAX_VALUE && maxDepth == Integer.MAX_VALUE
+        && cancelled == null;
+  }
+
+  /**
+   * Starts checking these limits for a traversal started at the given {@link System#nanoTime()}.
+   */
+  Check start(long startNanos) {
+    return new Check(startNanos);
+  }
+
+  private static long saturatedNanos(Duration duration) {
+    try {
+      return duration.toNanos();
+    } catch (ArithmeticException e) {
+      return duration.isNegative() ? 0 : Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * The limits of a single traversal, with the deadline resolved against the time the traversal started.
+   */
+  final class Check {
+
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+
+    private Check(long startNanos) {
+      long remaining = Long.MAX_VALUE;
+      if (timeout != null) {
+        remaining = Math.min(remaining, saturatedNanos(timeout));
+      }
+      if (deadline != null) {
+        remaining = Math.min(remaining, saturatedNanos(Duration.between(Instant.now(), deadline)));
+      }
+      this.hasDeadline = remaining != Long.MAX_VALUE;
+      this.deadlineNanos = startNanos + Math.max(0, remaining);
+    }
+
+    /**
+     * Checks whether the traversal may visit another page already current in the index.
+     *
+     * @return  the limit that stops the traversal or {@code null} to continue
+     */
+    NewsResult.Limit check() {
+      if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.getAsBoolean())) {
+        return NewsResult.Limit.CANCELLED;
+      }
+      if (hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+        return NewsResult.Limit.DEADLINE;
+      }
+      return null;
+    }
+
+    /**
+     * Checks whether the traversal may capture another page.
+     *
+     * @param  captured  the number of pages captured so far
+     *
+     * @return  the limit that stops the traversal or {@code null} to continue
+     */
+    NewsResult.Limit checkCapture(int captured) {
+      NewsResult.Limit stoppedBy = check();
+      if (stoppedBy == null && captured >= maxPages) {
+        stoppedBy = NewsResult.Limit.MAX_PAGES;
+      }
+      return stoppedBy;
+    }
+
+    /**
+     * Checks whether the traversal may visit pages at the given depth.
+     */
+    boolean isWithinDepth(int depth) {
+      return depth <= maxDepth;
+    }
+  }
+}
@@ -26,6 +26,7 @@ package com.semanticcms.news.servlet.impl;
 import com.aoapps.html.any.AnyDIV;
 import com.aoapps.html.any.AnyNAV;
 import com.aoapps.html.any.AnyPalpableContent;
+import com.aoapps.servlet.attribute.ScopeEE;
 import com.semanticcms.core.model.Element;
 import com.semanticcms.core.model.ElementContext;
 import com.semanticcms.core.model.Page;
@@ -38,13 +39,23 @@ import com.semanticcms.core.servlet.PageIndex;
 import com.semanticcms.core.servlet.PageRefResolver;
 import com.semanticcms.core.servlet.impl.LinkImpl;
 import com.semanticcms.news.model.News;
+import com.semanticcms.news.servlet.NewsCapturer;
+import com.semanticcms.news.servlet.NewsMetrics;
+import com.semanticcms.news.servlet.PageSources;
 import com.semanticcms.section.servlet.impl.SectionImpl;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import org.apache.commons.lang3.NotImplementedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Writes news body HTML.
@@ -56,6 +67,257 @@ public final class NewsImpl {
     throw new AssertionError();
   }
 
+  /**
+   * Resolves a news element referring to an element of its own page, once the capture of the page has completed
+   * and all of its element IDs are known.  A forward reference to an element later in the page, including after the
+   * last news element of the page, gets its title from the target element.  Only a target element that does not
+   * exist in the page is an error.
+   *
+   * @param  page  the page of the news element, after its capture has completed
+   */
+  private static void resolveInPage(Page page, News news) throws ServletException {
+    String newsElement = news.getElement();
+    if (newsElement != null) {
+      PageRef pageRef = page.getPageRef();
+      if (pageRef.getBookName().equals(news.getBook()) && pageRef.getPath().equals(news.getTargetPage())) {
+        Element targetElement = page.getElementsById().get(newsElement);
+        if (targetElement == null) {
+          throw new ServletException("Element not found in target page: " + newsElement);
+        }
+        if (page.getGeneratedIds().contains(newsElement)) {
+          throw new ServletException("Not allowed to link to a generated element id, set an explicit id on the target element: " + newsElement);
+        }
+        if (news.getTitle() == null) {
+          String title = targetElement.getLabel();
+          if (title == null || title.isEmpty()) {
+            throw new IllegalStateException("No label from targetElement: " + targetElement);
+          }
+          news.setTitle(title);
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolves the news elements of a page referring to elements of the page itself, once its capture has completed.
+   *
+   * @param  page  the page, after its capture has completed
+   *
+   * @throws  ServletException  when the target element of a news element does not exist in the page
+   */
+  static void resolveInPage(Page page) throws ServletException {
+    for (Element element : page.getElements()) {
+      if (element instanceof News) {
+        resolveInPage(page, (News) element);
+      }
+    }
+  }
+
+  /**
+   * A news element whose target is in another page and not yet cached, resolved once the capture of its page has
+   * completed.
+   */
+  private static final class Deferred {
+
+    private final News news;
+    private final PageRef targetPageRef;
+
+    private Deferred(News news, PageRef targetPageRef) {
+      this.news = news;
+      this.targetPageRef = targetPageRef;
+    }
+  }
+
+  /**
+   * The news elements of each page being captured in the current request that target other pages, in document
+   * order.
+   */
+  private static final ScopeEE.Request.Attribute<Map<Page, List<Deferred>>> DEFERRED_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(NewsImpl.class.getName() + ".deferred");
+
+  private static void defer(HttpServletRequest request, Page page, News news, PageRef targetPageRef) {
+    DEFERRED_REQUEST_ATTRIBUTE.context(request)
+        .computeIfAbsent(name -> new IdentityHashMap<>())
+        .computeIfAbsent(page, p -> new ArrayList<>())
+        .add(new Deferred(news, targetPageRef));
+  }
+
+  /**
+   * Completes the news elements of a page once its capture has completed and all of its news elements are known.
+   *
+   * <ol>
+   *   <li>References to elements of the page itself, including forward references to elements after the last news
+   *       element of the page, are resolved from the element IDs of the page.</li>
+   *   <li>The targets in other pages not already cached are deduplicated by target page, and the distinct target
+   *       pages are captured together by
+   *       {@link CapturePage#capturePages(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, java.util.Set, com.semanticcms.core.servlet.CaptureLevel)},
+   *       which uses concurrent subrequests when enabled for the request, or by the registered
+   *       {@link NewsCapturer}.</li>
+   * </ol>
+   *
+   * <p>News without a title whose page was captured by another request or concurrent subrequest, such as a page
+   * cached by {@link com.semanticcms.core.servlet.CapturePage}, is resolved here as well.</p>
+   *
+   * @param  page  the page, after its capture has completed
+   *
+   * @throws  ServletException  when the target element of a news element does not exist
+   */
+  public static void checkCapturedPage(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page page
+  ) throws ServletException, IOException {
+    resolveInPage(page);
+    Map<Page, List<Deferred>> deferredByPage = DEFERRED_REQUEST_ATTRIBUTE.context(request).get();
+    List<Deferred> removed = (deferredByPage == null) ? null : deferredByPage.remove(page);
+    List<Deferred> deferred = (removed == null) ? new ArrayList<>() : removed;
+    Set<News> found = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Deferred d : deferred) {
+      found.add(d.news);
+    }
+    // Also find news still without a title, deferred by a capture in another request or subrequest
+    PageRef pageRef = page.getPageRef();
+    for (Element element : page.getElements()) {
+      if (element instanceof News) {
+        News news = (News) element;
+        if (
+            news.getTitle() == null
+                && news.getBook() != null
+                && news.getTargetPage() != null
+                && !(pageRef.getBookName().equals(news.getBook()) && pageRef.getPath().equals(news.getTargetPage()))
+                && !found.contains(news)
+        ) {
+          PageRef targetPageRef = PageRefResolver.getPageRef(
+              servletContext,
+              request,
+              news.getBook(),
+              news.getTargetPage()
+          );
+          if (targetPageRef.getBook() != null) {
+            deferred.add(new Deferred(news, targetPageRef));
+          }
+        }
+      }
+    }
+    if (!deferred.isEmpty()) {
+      resolveTargets(servletContext, request, response, deferred);
+    }
+  }
+
+  /**
+   * Resolves the targets of news elements in other pages, capturing each distinct target page not already cached
+   * only once.
+   */
+  private static void resolveTargets(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      List<Deferred> deferred
+  ) throws ServletException, IOException {
+    final TargetCache targetCache = TargetCache.getInstance(servletContext);
+    final NewsMetrics metrics = NewsMetrics.getInstance(servletContext);
+    // Find the distinct target pages not already cached, at the capture level required by their targets
+    List<Deferred> uncached = new ArrayList<>();
+    Set<PageRef> metaPages = new LinkedHashSet<>();
+    Set<PageRef> pagePages = new LinkedHashSet<>();
+    for (Deferred d : deferred) {
+      String newsElement = d.news.getElement();
+      // Resolved since, such as by another news element or the capture of another page
+      String cachedTitle = targetCache.getTitle(d.targetPageRef, newsElement);
+      if (cachedTitle != null) {
+        metrics.recordTargetCacheHit();
+        if (d.news.getTitle() == null) {
+          d.news.setTitle(cachedTitle);
+        }
+      } else {
+        uncached.add(d);
+        if (newsElement == null) {
+          pagePages.add(d.targetPageRef);
+        } else {
+          metaPages.add(d.targetPageRef);
+        }
+      }
+    }
+    if (uncached.isEmpty()) {
+      return;
+    }
+    pagePages.removeAll(metaPages);
+    // Get the last modified before capture, so any modification during capture will be detected later
+    Map<PageRef, Long> lastModifieds = new HashMap<>();
+    for (Deferred d : uncached) {
+      lastModifieds.computeIfAbsent(d.targetPageRef, ref -> PageSources.getLastModified(servletContext, ref));
+    }
+    NewsCapturer capturer = NewsCapturer.getInstance(servletContext);
+    Map<PageRef, Page> captured = new HashMap<>();
+    captureTargets(servletContext, capturer, metrics, request, response, metaPages, CaptureLevel.META, captured);
+    captureTargets(servletContext, capturer, metrics, request, response, pagePages, CaptureLevel.PAGE, captured);
+    for (Deferred d : uncached) {
+      Page targetPage = captured.get(d.targetPageRef);
+      if (targetPage == null) {
+        throw new ServletException("Page not captured: " + d.targetPageRef);
+      }
+      String newsElement = d.news.getElement();
+      String title;
+      if (newsElement == null) {
+        title = targetPage.getTitle();
+      } else {
+        Element targetElement = targetPage.getElementsById().get(newsElement);
+        if (targetElement == null) {
+          throw new ServletException("Element not found in target page: " + newsElement);
+        }
+        if (targetPage.getGeneratedIds().contains(newsElement)) {
+          throw new ServletException("Not allowed to link to a generated element id, set an explicit id on the target element: " + newsElement);
+        }
+        title = targetElement.getLabel();
+        if (title == null || title.isEmpty()) {
+          if (d.news.getTitle() == null) {
+            throw new IllegalStateException("No label from targetElement: " + targetElement);
+          }
+          // Label not required when title set
+          title = null;
+        }
+      }
+      if (title != null) {
+        targetCache.putTitle(d.targetPageRef, newsElement, title, lastModifieds.get(d.targetPageRef));
+        if (d.news.getTitle() == null) {
+          d.news.setTitle(title);
+        }
+      }
+    }
+  }
+
+  /**
+   * Captures the given target pages together, adding them to the captured pages.  The news in target pages captured
+   * by {@link CapturePage} is resolved by the captures of the pages themselves.
+   *
+   * @param  capturer  the registered capturer or {@code null} to capture with {@link CapturePage}
+   */
+  private static void captureTargets(
+      ServletContext servletContext,
+      NewsCapturer capturer,
+      NewsMetrics metrics,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Set<PageRef> pageRefs,
+      CaptureLevel level,
+      Map<PageRef, Page> captured
+  ) throws ServletException, IOException {
+    if (!pageRefs.isEmpty()) {
+      final long startNanos = System.nanoTime();
+      captured.putAll(
+          (capturer == null)
+              ? CapturePage.capturePages(servletContext, request, response, pageRefs, level)
+              : capturer.capturePages(servletContext, request, response, pageRefs, level)
+      );
+      // Captured together, so the time is shared by the pages
+      long nanos = (System.nanoTime() - startNanos) / pageRefs.size();
+      for (PageRef pageRef : pageRefs) {
+        metrics.recordTargetCapture(pageRef, level, nanos);
+      }
+    }
+  }
+
   /**
    * Writes news body HTML.
    *
@@ -75,7 +337,6 @@ public final class NewsImpl {
       if (currentPage == null) {
         throw new ServletException("news must be nested within a page");
       }
-
       // Find the target page
       final PageRef currentPageRef = currentPage.getPageRef();
       final PageRef targetPageRef;
@@ -109,10 +370,18 @@ public final class NewsImpl {
       String newsElement = news.getElement();
       String newsTitle = news.getTitle();
       if (newsElement == null || newsTitle == null) {
+        final TargetCache targetCache = TargetCache.getInstance(servletContext);
+        final NewsMetrics metrics = NewsMetrics.getInstance(servletContext);
         // The target page will be null when in a missing book
         Page targetPage;
+        // The title resolved from a previous capture of the target page, if still current
+        String cachedTitle;
+        // Resolved once the capture of the current page has completed
+        boolean deferred = false;
         if (targetPageRef.getBook() == null) {
           targetPage = null;
+          cachedTitle = targetCache.getTitle(targetPageRef, newsElement);
+          metrics.recordMissingBook();
         } else if (
             // Short-cut for element already added above within current page
             targetPageRef.equals(currentPageRef)
@@ -122,58 +391,67 @@ public final class NewsImpl {
               )
         ) {
           targetPage = currentPage;
+          cachedTitle = null;
+        } else if (targetPageRef.equals(currentPageRef)) {
+          // Capturing self would cause unbounded recursion, resolve once the capture of the page has completed
+          targetPage = null;
+          cachedTitle = null;
+          deferred = true;
         } else {
-          // Capture required, even if capturing self
-          // TODO: This would cause unbound recursion and stack overflow at this time, there may be a complicate workaround when needed, such as not running this element on the recursive capture
-          if (targetPageRef.equals(currentPageRef)) {
-            throw new NotImplementedException("Forward reference to element in same page not supported yet");
+          targetPage = null;
+          cachedTitle = targetCache.getTitle(targetPageRef, newsElement);
+          if (cachedTitle != null) {
+            metrics.recordTargetCacheHit();
+          } else {
+            // Capture required, resolve with all the other targets of the page once its capture has completed
+            defer(request, currentPage, news, targetPageRef);
+            deferred = true;
           }
-          targetPage = CapturePage.capturePage(
-              servletContext,
-              request,
-              response,
-              targetPageRef,
-              newsElement == null ? CaptureLevel.PAGE : CaptureLevel.META
-          );
         }
-        // Find the optional target element, may remain null when in missing book
-        Element targetElement;
-        if (newsElement == null) {
-          // TODO: Locating the default targetElement based on parent element should be done after page element IDs
-          //       are generated and before the News element is frozen.  As-is, the default targetElement is only
-          //       set by the "renderer" layer, which may or may not happen in future releases when renderers are
-          //       a distinct different layer than the model and capture.
-          if (news.getBook() == null && news.getTargetPage() == null) {
-            Element parentElem = news.getParentElement();
-            if (parentElem != null) {
-              // Default to parent of current element
-              targetElement = parentElem;
-              newsElement = targetElement.getId();
-              news.setElement(newsElement);
+        if (cachedTitle != null) {
+          // Target already resolved and validated by a previous capture
+          if (newsTitle == null) {
+            newsTitle = cachedTitle;
+            news.setTitle(newsTitle);
+          }
+        } else if (!deferred) {
+          // Find the optional target element, may remain null when in missing book
+          Element targetElement;
+          if (newsElement == null) {
+            // TODO: Locating the default targetElement based on parent element should be done after page element IDs
+            //       are generated and before the News element is frozen.  As-is, the default targetElement is only
+            //       set by the "renderer" layer, which may or may not happen in future releases when renderers are
+            //       a distinct different layer than the model and capture.
+            if (news.getBook() == null && news.getTargetPage() == null) {
+              Element parentElem = news.getParentElement();
+              if (parentElem != null) {
+                // Default to parent of current element
+                targetElement = parentElem;
+                newsElement = targetElement.getId();
+                news.setElement(newsElement);
+              } else {
+                // No current element
+                targetElement = null;
+              }
             } else {
-              // No current element
+              // No element since book and/or page provided
               targetElement = null;
             }
           } else {
-            // No element since book and/or page provided
-            targetElement = null;
-          }
-        } else {
-          // Find the element
-          if (targetPage != null) {
-            targetElement = targetPage.getElementsById().get(newsElement);
-            if (targetElement == null) {
-              throw new ServletException("Element not found in target page: " + newsElement);
-            }
-            if (targetPage.getGeneratedIds().contains(newsElement)) {
-              throw new ServletException("Not allowed to link to a generated element id, set an explicit id on the target element: " + newsElement);
+            // Find the element
+            if (targetPage != null) {
+              targetElement = targetPage.getElementsById().get(newsElement);
+              if (targetElement == null) {
+                throw new ServletException("Element not found in target page: " + newsElement);
+              }
+              if (targetPage.getGeneratedIds().contains(newsElement)) {
+                throw new ServletException("Not allowed to link to a generated element id, set an explicit id on the target element: " + newsElement);
+              }
+            } else {
+              targetElement = null;
             }
-          } else {
-            targetElement = null;
           }
-        }
-        // Find the title if not set
-        if (newsTitle == null) {
+          // Find the title, also resolved when already set so it may be cached
           String title;
           if (newsElement != null) {
             if (targetElement == null) {
@@ -182,7 +460,11 @@ public final class NewsImpl {
             } else {
               title = targetElement.getLabel();
               if (title == null || title.isEmpty()) {
-                throw new IllegalStateException("No label from targetElement: " + targetElement);
+                if (newsTitle == null) {
+                  throw new IllegalStateException("No label from targetElement: " + targetElement);
+                }
+                // Label not required when title set
+                title = null;
               }
             }
           } else {
@@ -193,8 +475,14 @@ public final class NewsImpl {
               title = targetPage.getTitle();
             }
           }
-          newsTitle = title;
-          news.setTitle(newsTitle);
+          if (title != null && targetPage != currentPage) {
+            // Remember the negative entry for the missing book
+            targetCache.putTitle(targetPageRef, newsElement, title, PageSources.UNKNOWN);
+          }
+          if (newsTitle == null) {
+            newsTitle = title;
+            news.setTitle(newsTitle);
+          }
         }
       }
       // Set book and targetPage always, since news is used from views on other pages
@@ -217,6 +505,8 @@ public final class NewsImpl {
       PageIndex pageIndex
   ) throws ServletException, IOException {
     Page page = news.getPage();
+    // The page has been captured in full, so any forward reference from this news element may be resolved
+    resolveInPage(page, news);
     // Write table of contents before this, if needed on the page
     try {
       SectionImpl.writeToc(request, content, context, page);
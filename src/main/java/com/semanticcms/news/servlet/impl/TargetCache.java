@@ -0,0 +1,152 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet.impl;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.servlet.NewsInvalidation;
+import com.semanticcms.news.servlet.PageSources;
+import jakarta.servlet.ServletContext;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Application-scoped cache of the titles resolved from news targets, which avoids capturing the same target
+ * pages for every news element that refers to them.
+ *
+ * <p>Only successful resolutions are cached, so any error in a target is reported again on the next capture.
+ * An entry is used only while the source of its target page has not been modified.  Targets in missing books
+ * are cached as negative entries, which remain until invalidated through {@link NewsInvalidation}.</p>
+ *
+ * <p>Targets not cached are resolved together once the capture of their page has completed, by
+ * {@link NewsImpl#checkCapturedPage(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}.</p>
+ */
+final class TargetCache {
+
+  private static final ScopeEE.Application.Attribute<TargetCache> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(TargetCache.class.getName());
+
+  /**
+   * Gets the target cache for the given servlet context.
+   */
+  static TargetCache getInstance(ServletContext servletContext) {
+    return APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new TargetCache(servletContext));
+  }
+
+  private static final class Key {
+
+    private final PageRef pageRef;
+    private final String element;
+
+    private Key(PageRef pageRef, String element) {
+      this.pageRef = pageRef;
+      this.element = element;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return pageRef.equals(other.pageRef) && Objects.equals(element, other.element);
+    }
+
+    @Override
+    public int hashCode() {
+      return pageRef.hashCode() * 31 + Objects.hashCode(element);
+    }
+  }
+
+  private static final class Resolved {
+
+    private final String title;
+    private final long sourceLastModified;
+
+    private Resolved(String title, long sourceLastModified) {
+      this.title = title;
+      this.sourceLastModified = sourceLastModified;
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final ConcurrentMap<Key, Resolved> resolved = new ConcurrentHashMap<>();
+
+  private TargetCache(ServletContext servletContext) {
+    this.servletContext = servletContext;
+    NewsInvalidation.getInstance(servletContext).subscribe(new NewsInvalidation.Subscriber() {
+      @Override
+      public void invalidatePages(Set<PageRef> pageRefs) {
+        resolved.keySet().removeIf(key -> pageRefs.contains(key.pageRef));
+      }
+
+      @Override
+      public void invalidateBook(String book) {
+        resolved.keySet().removeIf(key -> key.pageRef.getBookName().equals(book));
+      }
+    });
+  }
+
+  /**
+   * Gets the title previously resolved for the given target.
+   *
+   * @param  element  the element within the target page or {@code null} for the page itself
+   *
+   * @return  the title or {@code null} when not cached or the target page has since been modified
+   */
+  String getTitle(PageRef pageRef, String element) {
+    Key key = new Key(pageRef, element);
+    Resolved r = resolved.get(key);
+    if (r == null) {
+      return null;
+    }
+    if (pageRef.getBook() == null) {
+      // Negative entry for missing book
+      return r.title;
+    }
+    long lastModified = PageSources.getLastModified(servletContext, pageRef);
+    if (lastModified != PageSources.UNKNOWN && lastModified == r.sourceLastModified) {
+      return r.title;
+    }
+    resolved.remove(key, r);
+    return null;
+  }
+
+  /**
+   * Caches the title resolved for the given target.
+   *
+   * @param  element  the element within the target page or {@code null} for the page itself
+   * @param  sourceLastModified  the last modified time of the target page source, obtained before the target page
+   *                             was captured
+   */
+  void putTitle(PageRef pageRef, String element, String title, long sourceLastModified) {
+    if (pageRef.getBook() != null && sourceLastModified == PageSources.UNKNOWN) {
+      // Unable to detect changes
+      return;
+    }
+    resolved.put(new Key(pageRef, element), new Resolved(title, sourceLastModified));
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/**
+ * Tests that snapshots of the global news index are isolated from later updates.
+ */
+public class GlobalNewsIndexTest {
+
+  private static final Book BOOK = new Book("/test", null, true, Collections.emptySet(), new Properties());
+
+  private static final PageRef PAGE_A = new PageRef(BOOK, "/a");
+  private static final PageRef PAGE_B = new PageRef(BOOK, "/b");
+
+  private static final ZonedDateTime SINCE = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  private static NewsSummary newSummary(PageRef pageRef, String id, int day) {
+    News news = new News();
+    news.setId(id);
+    news.setPubDate(SINCE.plusDays(day));
+    return new NewsSummary(pageRef, news, true);
+  }
+
+  private static List<String> ids(Iterable<NewsSummary> news) {
+    List<String> ids = new ArrayList<>();
+    for (NewsSummary n : news) {
+      ids.add(n.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testSortedByNaturalOrder() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    index.update(PAGE_A, () -> Arrays.asList(newSummary(PAGE_A, "a1", 1), newSummary(PAGE_A, "a3", 3)));
+    index.update(PAGE_B, () -> Arrays.asList(newSummary(PAGE_B, "b2", 2), newSummary(PAGE_B, "b4", 4)));
+    try (GlobalNewsIndex.Snapshot snapshot = index.snapshot()) {
+      // Newest first
+      assertEquals(Arrays.asList("b4", "a3", "b2", "a1"), ids(snapshot));
+      assertEquals(
+          Arrays.asList("b4", "a3", "b2", "a1"),
+          snapshot.stream().map(NewsSummary::getId).collect(Collectors.toList())
+      );
+    }
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  public void testSnapshotIsolatedFromUpdate() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    index.update(PAGE_A, () -> Arrays.asList(newSummary(PAGE_A, "a1", 1), newSummary(PAGE_A, "a2", 2)));
+    try (GlobalNewsIndex.Snapshot before = index.snapshot()) {
+      index.update(PAGE_A, () -> Collections.singletonList(newSummary(PAGE_A, "a3", 3)));
+      index.update(PAGE_B, () -> Collections.singletonList(newSummary(PAGE_B, "b1", 1)));
+      try (GlobalNewsIndex.Snapshot after = index.snapshot()) {
+        // The page is seen either entirely before or entirely after the update
+        assertEquals(Arrays.asList("a2", "a1"), ids(before));
+        assertEquals(Arrays.asList("a3", "b1"), ids(after));
+        assertTrue(after.getVersion() > before.getVersion());
+      }
+      // Still isolated once the newer snapshot is closed and its removed news purged
+      index.update(PAGE_B, () -> null);
+      assertEquals(Arrays.asList("a2", "a1"), ids(before));
+    }
+    try (GlobalNewsIndex.Snapshot latest = index.snapshot()) {
+      assertEquals(Collections.singletonList("a3"), ids(latest));
+    }
+  }
+
+  @Test
+  public void testSnapshotIsolatedFromRemoval() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    index.update(PAGE_A, () -> Collections.singletonList(newSummary(PAGE_A, "a1", 1)));
+    try (GlobalNewsIndex.Snapshot before = index.snapshot()) {
+      index.update(PAGE_A, () -> null);
+      assertEquals(Collections.singletonList("a1"), ids(before));
+      try (GlobalNewsIndex.Snapshot after = index.snapshot()) {
+        assertFalse(after.iterator().hasNext());
+      }
+    }
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void testSnapshotIsolatedFromClear() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    index.update(PAGE_A, () -> Collections.singletonList(newSummary(PAGE_A, "a1", 1)));
+    index.update(PAGE_B, () -> Collections.singletonList(newSummary(PAGE_B, "b1", 2)));
+    try (GlobalNewsIndex.Snapshot before = index.snapshot()) {
+      index.clear();
+      assertEquals(Arrays.asList("b1", "a1"), ids(before));
+      try (GlobalNewsIndex.Snapshot after = index.snapshot()) {
+        assertFalse(after.iterator().hasNext());
+      }
+    }
+  }
+
+  @Test
+  public void testUnchangedUpdateKeepsVersion() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    List<NewsSummary> news = Collections.singletonList(newSummary(PAGE_A, "a1", 1));
+    index.update(PAGE_A, () -> news);
+    long version;
+    try (GlobalNewsIndex.Snapshot snapshot = index.snapshot()) {
+      version = snapshot.getVersion();
+    }
+    index.update(PAGE_A, () -> news);
+    try (GlobalNewsIndex.Snapshot snapshot = index.snapshot()) {
+      assertEquals(version, snapshot.getVersion());
+    }
+  }
+
+  @Test
+  public void testClosedSnapshot() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    GlobalNewsIndex.Snapshot snapshot = index.snapshot();
+    snapshot.close();
+    // Closing again has no effect
+    snapshot.close();
+    try {
+      snapshot.iterator();
+      fail("Closed snapshot must not be iterated");
+    } catch (IllegalStateException e) {
+      assertEquals("Snapshot closed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testEnable() {
+    GlobalNewsIndex index = new GlobalNewsIndex();
+    assertFalse(index.isEnabled());
+    index.enable();
+    assertTrue(index.isEnabled());
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that manifests are read as written, and that corrupt manifests are discarded.
+ */
+public class NewsManifestTest {
+
+  private static final Book BOOK = new Book("/test", null, true, Collections.emptySet(), new Properties());
+  private static final Book OTHER_BOOK = new Book("/other", null, true, Collections.emptySet(), new Properties());
+
+  private static final ZonedDateTime PUB_DATE = ZonedDateTime.of(2026, 1, 1, 12, 30, 0, 0, ZoneOffset.UTC);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Map<String, Book> books;
+  private NewsManifest manifest;
+
+  @Before
+  public void setUp() {
+    books = new HashMap<>();
+    books.put(BOOK.getName(), BOOK);
+    books.put(OTHER_BOOK.getName(), OTHER_BOOK);
+    manifest = new NewsManifest(folder.getRoot());
+  }
+
+  private static NewsManifest.Record newRecord(PageRef pageRef, PageRef childRef, PageRef targetRef) {
+    News news = new News();
+    news.setId("news-1");
+    news.setBook(targetRef.getBookName());
+    news.setTargetPage(targetRef.getPath());
+    news.setElement("section-1");
+    news.setView("content");
+    // Escaped characters and null fields
+    news.setTitle("Tab\tNewline\nReturn\rBackslash\\0");
+    news.setDescription(null);
+    news.setPubDate(PUB_DATE);
+    news.setAllowRobots(Boolean.FALSE);
+    Map<PageRef, Long> targets = new HashMap<>();
+    targets.put(targetRef, 2000L);
+    Map<String, Long> includes = new HashMap<>();
+    includes.put("/test/include.inc.jspx", 3000L);
+    return new NewsManifest.Record(
+        pageRef,
+        1000L,
+        "Page\t" + pageRef.getPath(),
+        false,
+        Collections.singletonList(childRef),
+        Collections.singletonList(news),
+        targets,
+        includes
+    );
+  }
+
+  private File getFile(Book book) {
+    return new File(folder.getRoot(), URLEncoder.encode(book.getName(), StandardCharsets.UTF_8) + ".news");
+  }
+
+  private static List<News> getNews(Page page) {
+    List<News> news = new ArrayList<>();
+    for (Element element : page.getElements()) {
+      if (element instanceof News) {
+        news.add((News) element);
+      }
+    }
+    return news;
+  }
+
+  private void replaceInFile(Book book, String target, String replacement) throws IOException {
+    File file = getFile(book);
+    String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    assertTrue(content.contains(target));
+    Files.writeString(file.toPath(), content.replace(target, replacement), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    PageRef childRef = new PageRef(OTHER_BOOK, "/child");
+    PageRef targetRef = new PageRef(OTHER_BOOK, "/target");
+    manifest.write(Collections.singletonList(newRecord(pageRef, childRef, targetRef)));
+    List<NewsManifest.Record> records = manifest.read(books);
+    assertEquals(1, records.size());
+    NewsManifest.Record record = records.get(0);
+    assertEquals(pageRef, record.getPageRef());
+    assertEquals(1000L, record.getSourceLastModified());
+    assertFalse(record.isAllowRobots());
+    assertEquals(Collections.singletonMap(targetRef, 2000L), record.getTargets());
+    assertEquals(Collections.singletonMap("/test/include.inc.jspx", 3000L), record.getIncludes());
+    Page page = record.toPage();
+    assertEquals(pageRef, page.getPageRef());
+    assertEquals("Page\t/page", page.getTitle());
+    assertEquals(Boolean.FALSE, page.getAllowRobots());
+    List<PageRef> childRefs = new ArrayList<>();
+    for (ChildRef c : page.getChildRefs()) {
+      childRefs.add(c.getPageRef());
+    }
+    assertEquals(Collections.singletonList(childRef), childRefs);
+    List<News> news = getNews(page);
+    assertEquals(1, news.size());
+    News n = news.get(0);
+    assertEquals("news-1", n.getId());
+    assertEquals(OTHER_BOOK.getName(), n.getBook());
+    assertEquals("/target", n.getTargetPage());
+    assertEquals("section-1", n.getElement());
+    assertEquals("content", n.getView());
+    assertEquals("Tab\tNewline\nReturn\rBackslash\\0", n.getTitle());
+    assertNull(n.getDescription());
+    assertEquals(PUB_DATE, n.getPubDate());
+    assertEquals(Boolean.FALSE, n.getAllowRobots());
+  }
+
+  @Test
+  public void testMultipleBooks() throws IOException {
+    PageRef page1 = new PageRef(BOOK, "/page-1");
+    PageRef page2 = new PageRef(BOOK, "/page-2");
+    PageRef page3 = new PageRef(OTHER_BOOK, "/page-3");
+    manifest.write(Arrays.asList(
+        newRecord(page1, page2, page3),
+        newRecord(page2, page3, page1),
+        newRecord(page3, page1, page2)
+    ));
+    List<PageRef> pageRefs = new ArrayList<>();
+    for (NewsManifest.Record record : manifest.read(books)) {
+      pageRefs.add(record.getPageRef());
+    }
+    assertEquals(3, pageRefs.size());
+    assertTrue(pageRefs.containsAll(Arrays.asList(page1, page2, page3)));
+  }
+
+  @Test
+  public void testWriteRemovesBooksWithoutRecords() throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    PageRef otherRef = new PageRef(OTHER_BOOK, "/page");
+    manifest.write(Arrays.asList(newRecord(pageRef, pageRef, pageRef), newRecord(otherRef, otherRef, otherRef)));
+    assertTrue(getFile(OTHER_BOOK).exists());
+    manifest.write(Collections.singletonList(newRecord(pageRef, pageRef, pageRef)));
+    assertFalse(getFile(OTHER_BOOK).exists());
+    assertEquals(1, manifest.read(books).size());
+    manifest.write(Collections.emptyList());
+    assertFalse(getFile(BOOK).exists());
+    assertTrue(manifest.read(books).isEmpty());
+  }
+
+  @Test
+  public void testBookNoLongerConfigured() throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    manifest.write(Collections.singletonList(newRecord(pageRef, pageRef, pageRef)));
+    assertTrue(manifest.read(Collections.singletonMap(OTHER_BOOK.getName(), OTHER_BOOK)).isEmpty());
+  }
+
+  @Test
+  public void testChildInMissingBookDiscardsPage() throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    PageRef otherRef = new PageRef(BOOK, "/other");
+    manifest.write(Arrays.asList(
+        newRecord(pageRef, new PageRef(OTHER_BOOK, "/child"), pageRef),
+        newRecord(otherRef, otherRef, otherRef)
+    ));
+    List<NewsManifest.Record> records = manifest.read(Collections.singletonMap(BOOK.getName(), BOOK));
+    assertEquals(1, records.size());
+    assertEquals(otherRef, records.get(0).getPageRef());
+  }
+
+  @Test
+  public void testTargetInMissingBookDiscardsPage() throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    manifest.write(Collections.singletonList(newRecord(pageRef, pageRef, new PageRef(OTHER_BOOK, "/target"))));
+    assertTrue(manifest.read(Collections.singletonMap(BOOK.getName(), BOOK)).isEmpty());
+  }
+
+  /**
+   * Writes a manifest for each book, corrupts the manifest of {@link #BOOK}, then checks that only the other book is
+   * read.
+   */
+  private void assertCorruptDiscarded(String target, String replacement) throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    PageRef otherRef = new PageRef(OTHER_BOOK, "/page");
+    manifest.write(Arrays.asList(newRecord(pageRef, pageRef, pageRef), newRecord(otherRef, otherRef, otherRef)));
+    replaceInFile(BOOK, target, replacement);
+    List<NewsManifest.Record> records = manifest.read(books);
+    assertEquals(1, records.size());
+    assertEquals(otherRef, records.get(0).getPageRef());
+  }
+
+  @Test
+  public void testOtherVersionDiscarded() throws IOException {
+    assertCorruptDiscarded("semanticcms-news-manifest\t4", "semanticcms-news-manifest\t3");
+  }
+
+  @Test
+  public void testTruncatedLineDiscarded() throws IOException {
+    assertCorruptDiscarded("\t1000\t", "\n");
+  }
+
+  @Test
+  public void testInvalidNumberDiscarded() throws IOException {
+    assertCorruptDiscarded("\t1000\t", "\tten\t");
+  }
+
+  @Test
+  public void testInvalidDateDiscarded() throws IOException {
+    assertCorruptDiscarded(PUB_DATE.toString(), "yesterday");
+  }
+
+  @Test
+  public void testInvalidEscapeDiscarded() throws IOException {
+    assertCorruptDiscarded("\\t", "\\x");
+  }
+
+  @Test
+  public void testUnexpectedLineDiscarded() throws IOException {
+    assertCorruptDiscarded("\nC\t", "\nX\t");
+  }
+
+  @Test
+  public void testNewsBeforePageDiscarded() throws IOException {
+    assertCorruptDiscarded("semanticcms-news-manifest\t4\n", "semanticcms-news-manifest\t4\nN\tnews-0\n");
+  }
+
+  @Test
+  public void testEmptyDiscarded() throws IOException {
+    PageRef pageRef = new PageRef(BOOK, "/page");
+    manifest.write(Collections.singletonList(newRecord(pageRef, pageRef, pageRef)));
+    Files.write(getFile(BOOK).toPath(), new byte[0]);
+    assertTrue(manifest.read(books).isEmpty());
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the coalescing of concurrent calls, including failures and timeouts.
+ */
+public class SingleFlightTest {
+
+  private static final String KEY = "key";
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final AtomicInteger joined = new AtomicInteger();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Waits until the given thread is waiting, such as for the result of another thread.
+   */
+  private static void awaitWaiting(Thread thread) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+      if (System.nanoTime() - deadline >= 0) {
+        fail("Thread not waiting: " + thread);
+      }
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Starts a call that blocks until released, returning once the call has started.
+   */
+  private Future<String> startBlocked(
+      SingleFlight<String, String> flight,
+      CountDownLatch release,
+      SingleFlight.Call<String> onRelease
+  ) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    Future<String> future = executor.submit(() -> flight.execute(KEY, () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      return onRelease.call();
+    }));
+    started.await();
+    return future;
+  }
+
+  /**
+   * Starts a call that fails if performed, so must wait for the blocked call.  Returns once the call is waiting.
+   */
+  private Future<String> startWaiting(SingleFlight<String, String> flight) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    Thread[] thread = new Thread[1];
+    Future<String> future = executor.submit(() -> {
+      thread[0] = Thread.currentThread();
+      started.countDown();
+      return flight.execute(KEY, () -> {
+        throw new AssertionError("Must wait for the other call");
+      });
+    });
+    started.await();
+    awaitWaiting(thread[0]);
+    return future;
+  }
+
+  private static void assertFailure(Throwable expected, Future<String> future) throws InterruptedException {
+    try {
+      future.get();
+      fail("Failure must be thrown to every thread");
+    } catch (ExecutionException e) {
+      assertSame(expected, e.getCause());
+    }
+  }
+
+  @Test
+  public void testCoalesced() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>(TimeUnit.SECONDS.toMillis(60), joined::incrementAndGet);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = startBlocked(flight, release, () -> "result");
+    Future<String> waiter1 = startWaiting(flight);
+    Future<String> waiter2 = startWaiting(flight);
+    release.countDown();
+    assertEquals("result", leader.get());
+    assertEquals("result", waiter1.get());
+    assertEquals("result", waiter2.get());
+    assertEquals(2, joined.get());
+  }
+
+  @Test
+  public void testFailurePropagatedToWaiters() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>(TimeUnit.SECONDS.toMillis(60), joined::incrementAndGet);
+    CountDownLatch release = new CountDownLatch(1);
+    IOException failure = new IOException("Call failed");
+    Future<String> leader = startBlocked(flight, release, () -> {
+      throw failure;
+    });
+    Future<String> waiter = startWaiting(flight);
+    release.countDown();
+    assertFailure(failure, leader);
+    assertFailure(failure, waiter);
+    assertEquals(0, joined.get());
+    // The failed call is not kept
+    assertEquals("next", flight.execute(KEY, () -> "next"));
+  }
+
+  @Test
+  public void testRuntimeExceptionPropagatedToWaiters() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>(TimeUnit.SECONDS.toMillis(60), joined::incrementAndGet);
+    CountDownLatch release = new CountDownLatch(1);
+    IllegalStateException failure = new IllegalStateException("Call failed");
+    startBlocked(flight, release, () -> {
+      throw failure;
+    });
+    Future<String> waiter = startWaiting(flight);
+    release.countDown();
+    assertFailure(failure, waiter);
+  }
+
+  @Test
+  public void testTimeoutTakesOver() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>(50, joined::incrementAndGet);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = startBlocked(flight, release, () -> "leader");
+    // The waiting thread times out while the leader is still blocked, so performs the call itself
+    Future<String> waiter = executor.submit(() -> flight.execute(KEY, () -> "waiter"));
+    assertEquals("waiter", waiter.get(10, TimeUnit.SECONDS));
+    assertEquals(0, joined.get());
+    release.countDown();
+    assertEquals("leader", leader.get());
+  }
+
+  @Test
+  public void testReentrant() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>(TimeUnit.SECONDS.toMillis(60), joined::incrementAndGet);
+    assertEquals("outer inner", flight.execute(KEY, () -> "outer " + flight.execute(KEY, () -> "inner")));
+    assertEquals(0, joined.get());
+  }
+
+  @Test
+  public void testZeroTimeoutNeverCoalesces() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>(0, joined::incrementAndGet);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = startBlocked(flight, release, () -> "leader");
+    assertEquals("other", flight.execute(KEY, () -> "other"));
+    release.countDown();
+    assertEquals("leader", leader.get());
+    assertEquals(0, joined.get());
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests the selection of the first news items in news natural order.
+ */
+public class TopNewsTest {
+
+  private static final ZonedDateTime SINCE = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  /**
+   * Creates news in a single page, where news with a greater index is newer, so comes first in natural order.
+   */
+  private static List<News> newNews(int count) {
+    Page page = new Page();
+    page.setPageRef(new PageRef(new Book("/test", null, true, Collections.emptySet(), new Properties()), "/page"));
+    List<News> news = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      News n = new News();
+      n.setId("news-" + i);
+      n.setPubDate(SINCE.plusDays(i));
+      page.addElement(n);
+      news.add(n);
+    }
+    return news;
+  }
+
+  private static List<News> sorted(List<News> news) {
+    List<News> sorted = new ArrayList<>(news);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static List<News> select(List<News> news, News after, int offset, int limit) {
+    TopNews top = new TopNews(after, offset, limit);
+    // Offered out of order
+    List<News> shuffled = new ArrayList<>(news);
+    Collections.shuffle(shuffled, new Random(0));
+    top.offerAll(shuffled);
+    return top.toList();
+  }
+
+  @Test
+  public void testSelectsFirstInNaturalOrder() {
+    List<News> news = newNews(100);
+    List<News> expected = sorted(news).subList(0, 10);
+    assertEquals(expected, select(news, null, 0, 10));
+  }
+
+  @Test
+  public void testOffset() {
+    List<News> news = newNews(100);
+    assertEquals(sorted(news).subList(20, 30), select(news, null, 20, 10));
+  }
+
+  @Test
+  public void testOffsetPastEnd() {
+    assertEquals(Collections.emptyList(), select(newNews(10), null, 10, 5));
+  }
+
+  @Test
+  public void testLimitPastEnd() {
+    List<News> news = newNews(10);
+    assertEquals(sorted(news).subList(5, 10), select(news, null, 5, 100));
+  }
+
+  @Test
+  public void testZeroLimit() {
+    assertEquals(Collections.emptyList(), select(newNews(10), null, 0, 0));
+  }
+
+  @Test
+  public void testUnboundedLimit() {
+    List<News> news = newNews(10);
+    // offset + limit overflows int
+    assertEquals(sorted(news).subList(1, 10), select(news, null, 1, Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void testAfter() {
+    List<News> news = newNews(100);
+    List<News> sorted = sorted(news);
+    // Strictly after the cursor
+    assertEquals(sorted.subList(11, 21), select(news, sorted.get(10), 0, 10));
+    assertEquals(sorted.subList(16, 21), select(news, sorted.get(10), 5, 5));
+  }
+
+  @Test
+  public void testAfterLast() {
+    List<News> news = newNews(10);
+    assertEquals(Collections.emptyList(), select(news, sorted(news).get(9), 0, 10));
+  }
+
+  @Test
+  public void testFromSortedMatchesSelection() {
+    List<News> news = newNews(50);
+    List<News> sorted = sorted(news);
+    for (News after : new News[]{null, sorted.get(0), sorted.get(25), sorted.get(49)}) {
+      for (int offset : new int[]{0, 1, 10, 60}) {
+        for (int limit : new int[]{0, 1, 10, Integer.MAX_VALUE}) {
+          assertEquals(
+              "after=" + after + ", offset=" + offset + ", limit=" + limit,
+              select(news, after, offset, limit),
+              TopNews.fromSorted(sorted, after, offset, limit)
+          );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNegativeOffset() {
+    try {
+      new TopNews(null, -1, 10);
+      fail("Negative offset must be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("offset < 0"));
+    }
+  }
+
+  @Test
+  public void testNegativeLimit() {
+    try {
+      TopNews.fromSorted(Collections.emptyList(), null, 0, -1);
+      fail("Negative limit must be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("limit < 0"));
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/**
+ * Tests the limits on news traversals.
+ */
+public class TraversalLimitsTest {
+
+  @Test
+  public void testNone() {
+    TraversalLimits.Check check = TraversalLimits.NONE.start(System.nanoTime());
+    assertTrue(TraversalLimits.NONE.isUnbounded());
+    assertNull(check.check());
+    assertNull(check.checkCapture(Integer.MAX_VALUE - 1));
+    assertTrue(check.isWithinDepth(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void testImmutable() {
+    TraversalLimits limits = TraversalLimits.NONE.maxPages(10);
+    TraversalLimits deeper = limits.maxDepth(2);
+    assertEquals(Integer.MAX_VALUE, TraversalLimits.NONE.getMaxPages());
+    assertEquals(Integer.MAX_VALUE, limits.getMaxDepth());
+    assertEquals(10, deeper.getMaxPages());
+    assertEquals(2, deeper.getMaxDepth());
+    assertFalse(limits.isUnbounded());
+  }
+
+  @Test
+  public void testMaxPagesCountsOnlyCaptures() {
+    TraversalLimits.Check check = TraversalLimits.NONE.maxPages(2).start(System.nanoTime());
+    assertNull(check.checkCapture(0));
+    assertNull(check.checkCapture(1));
+    assertSame(NewsResult.Limit.MAX_PAGES, check.checkCapture(2));
+    // Pages already current are still visited
+    assertNull(check.check());
+  }
+
+  @Test
+  public void testZeroMaxPages() {
+    TraversalLimits.Check check = TraversalLimits.NONE.maxPages(0).start(System.nanoTime());
+    assertSame(NewsResult.Limit.MAX_PAGES, check.checkCapture(0));
+    assertNull(check.check());
+  }
+
+  @Test
+  public void testMaxDepth() {
+    TraversalLimits.Check check = TraversalLimits.NONE.maxDepth(1).start(System.nanoTime());
+    assertTrue(check.isWithinDepth(0));
+    assertTrue(check.isWithinDepth(1));
+    assertFalse(check.isWithinDepth(2));
+  }
+
+  @Test
+  public void testTimeout() {
+    long startNanos = System.nanoTime();
+    assertSame(NewsResult.Limit.DEADLINE, TraversalLimits.NONE.timeout(Duration.ZERO).start(startNanos).check());
+    assertNull(TraversalLimits.NONE.timeout(Duration.ofHours(1)).start(startNanos).check());
+    // Too long for nanoseconds
+    assertNull(TraversalLimits.NONE.timeout(Duration.ofSeconds(Long.MAX_VALUE)).start(startNanos).check());
+  }
+
+  @Test
+  public void testDeadline() {
+    long startNanos = System.nanoTime();
+    Instant now = Instant.now();
+    TraversalLimits passed = TraversalLimits.NONE.deadline(now.minusSeconds(1));
+    assertSame(NewsResult.Limit.DEADLINE, passed.start(startNanos).check());
+    assertSame(NewsResult.Limit.DEADLINE, passed.start(startNanos).checkCapture(0));
+    assertNull(TraversalLimits.NONE.deadline(now.plusSeconds(3600)).start(startNanos).check());
+  }
+
+  @Test
+  public void testEarlierOfDeadlineAndTimeout() {
+    long startNanos = System.nanoTime();
+    Instant later = Instant.now().plusSeconds(3600);
+    assertSame(
+        NewsResult.Limit.DEADLINE,
+        TraversalLimits.NONE.deadline(later).timeout(Duration.ZERO).start(startNanos).check()
+    );
+    assertSame(
+        NewsResult.Limit.DEADLINE,
+        TraversalLimits.NONE.timeout(Duration.ofHours(1)).deadline(Instant.now().minusSeconds(1))
+            .start(startNanos).check()
+    );
+  }
+
+  @Test
+  public void testCancelled() {
+    AtomicBoolean cancelled = new AtomicBoolean();
+    TraversalLimits.Check check = TraversalLimits.NONE.cancelled(cancelled::get).start(System.nanoTime());
+    assertNull(check.check());
+    cancelled.set(true);
+    assertSame(NewsResult.Limit.CANCELLED, check.check());
+    assertSame(NewsResult.Limit.CANCELLED, check.checkCapture(0));
+  }
+
+  @Test
+  public void testInterrupted() {
+    TraversalLimits.Check check = TraversalLimits.NONE.start(System.nanoTime());
+    Thread.currentThread().interrupt();
+    try {
+      assertSame(NewsResult.Limit.CANCELLED, check.check());
+      // The interrupted status is left set
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testCancelledBeforeMaxPages() {
+    TraversalLimits.Check check = TraversalLimits.NONE.maxPages(0).cancelled(() -> true).start(System.nanoTime());
+    assertSame(NewsResult.Limit.CANCELLED, check.checkCapture(0));
+  }
+
+  @Test
+  public void testNegativeLimits() {
+    try {
+      TraversalLimits.NONE.maxPages(-1);
+      fail("Negative maxPages must be rejected");
+    } catch (IllegalArgumentException e) {
+      assertEquals("maxPages < 0: -1", e.getMessage());
+    }
+    try {
+      TraversalLimits.NONE.maxDepth(-1);
+      fail("Negative maxDepth must be rejected");
+    } catch (IllegalArgumentException e) {
+      assertEquals("maxDepth < 0: -1", e.getMessage());
+    }
+    try {
+      TraversalLimits.NONE.timeout(Duration.ofSeconds(-1));
+      fail("Negative timeout must be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("timeout < 0"));
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * semanticcms-news-servlet - SemanticCMS newsfeeds in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-servlet.
+ *
+ * semanticcms-news-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.servlet.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.semanticcms.core.model.Book;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import com.semanticcms.section.model.Section;
+import jakarta.servlet.ServletException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Properties;
+import org.junit.Test;
+
+/**
+ * Tests the resolution of news elements referring to elements of their own page.
+ */
+public class NewsImplTest {
+
+  private static final String BOOK_NAME = "/test";
+
+  private static final PageRef PAGE_REF = new PageRef(
+      new Book(BOOK_NAME, null, true, Collections.emptySet(), new Properties()),
+      "/page"
+  );
+
+  private static Page newPage() {
+    Page page = new Page();
+    page.setPageRef(PAGE_REF);
+    page.setTitle("Page");
+    return page;
+  }
+
+  /**
+   * Creates news targeting an element of {@link #PAGE_REF}, as set by the capture of the news element.
+   */
+  private static News newNews(String id, String element, String title) {
+    News news = new News();
+    news.setId(id);
+    news.setBook(BOOK_NAME);
+    news.setTargetPage(PAGE_REF.getPath());
+    news.setElement(element);
+    news.setTitle(title);
+    news.setPubDate(ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+    return news;
+  }
+
+  private static Section newSection(String id, String name) {
+    Section section = new Section();
+    section.setId(id);
+    section.setName(name);
+    return section;
+  }
+
+  @Test
+  public void testForwardReferenceToSectionAfterLastNews() throws ServletException {
+    Page page = newPage();
+    News news = newNews("news-1", "below", null);
+    page.addElement(news);
+    page.addElement(newSection("below", "Below"));
+    NewsImpl.resolveInPage(page);
+    assertEquals("Below", news.getTitle());
+  }
+
+  @Test
+  public void testForwardReferencesFromMultipleNews() throws ServletException {
+    Page page = newPage();
+    News first = newNews("news-1", "below", null);
+    News second = newNews("news-2", "below", null);
+    page.addElement(first);
+    page.addElement(second);
+    page.addElement(newSection("below", "Below"));
+    NewsImpl.resolveInPage(page);
+    assertEquals("Below", first.getTitle());
+    assertEquals("Below", second.getTitle());
+  }
+
+  @Test
+  public void testForwardReferenceKeepsTitle() throws ServletException {
+    Page page = newPage();
+    News news = newNews("news-1", "below", "Title");
+    page.addElement(news);
+    page.addElement(newSection("below", "Below"));
+    NewsImpl.resolveInPage(page);
+    assertEquals("Title", news.getTitle());
+  }
+
+  @Test
+  public void testForwardReferenceToLaterNews() throws ServletException {
+    Page page = newPage();
+    News first = newNews("news-1", "news-2", null);
+    News second = newNews("news-2", null, "Second");
+    page.addElement(first);
+    page.addElement(second);
+    NewsImpl.resolveInPage(page);
+    assertEquals("Second", first.getTitle());
+  }
+
+  @Test
+  public void testBackwardAndForwardReferences() throws ServletException {
+    Page page = newPage();
+    page.addElement(newSection("above", "Above"));
+    News backward = newNews("news-1", "above", null);
+    News forward = newNews("news-2", "below", null);
+    page.addElement(backward);
+    page.addElement(forward);
+    page.addElement(newSection("below", "Below"));
+    NewsImpl.resolveInPage(page);
+    assertEquals("Above", backward.getTitle());
+    assertEquals("Below", forward.getTitle());
+  }
+
+  @Test
+  public void testBackwardReference() throws ServletException {
+    Page page = newPage();
+    page.addElement(newSection("above", "Above"));
+    News news = newNews("news-1", "above", null);
+    page.addElement(news);
+    NewsImpl.resolveInPage(page);
+    assertEquals("Above", news.getTitle());
+  }
+
+  @Test
+  public void testForwardReferenceNotFound() {
+    Page page = newPage();
+    page.addElement(newNews("news-1", "missing", null));
+    page.addElement(newSection("below", "Below"));
+    try {
+      NewsImpl.resolveInPage(page);
+      fail("Missing target element must be reported");
+    } catch (ServletException e) {
+      assertEquals("Element not found in target page: missing", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testOtherPageNotResolved() throws ServletException {
+    Page page = newPage();
+    News news = newNews("news-1", "elsewhere", null);
+    news.setTargetPage("/other");
+    page.addElement(news);
+    NewsImpl.resolveInPage(page);
+    assertEquals(null, news.getTitle());
+  }
+}